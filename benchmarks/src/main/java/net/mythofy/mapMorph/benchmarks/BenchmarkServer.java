@@ -0,0 +1,60 @@
+package net.mythofy.mapMorph.benchmarks;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.mythofy.mapMorph.MapMorph;
+import net.mythofy.mapMorph.extensions.MapPlayerData;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Starts a mocked Bukkit server with MapMorph loaded, so benchmarks can
+ * exercise plugin code on a plain JVM without a Minecraft server.
+ */
+final class BenchmarkServer {
+
+    static final String MAP_NAME = "arena";
+    static final String STAT_KEY = "kills";
+
+    private BenchmarkServer() {
+    }
+
+    /**
+     * Mocks the server and enables MapMorph with auto-saving turned off,
+     * so background saves don't disturb measurements.
+     *
+     * @return The enabled plugin
+     */
+    static MapMorph start() {
+        MockBukkit.mock();
+        MapMorph plugin = MockBukkit.load(MapMorph.class);
+        plugin.getConfig().set("player_data.save-interval", 0);
+        plugin.getConfig().set("general.debug", false);
+        return plugin;
+    }
+
+    /**
+     * Shuts down the mocked server.
+     */
+    static void stop() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Fills player data with two numeric stats per player on the benchmark map.
+     *
+     * @param data    The player data manager
+     * @param players The number of players to create
+     * @return The generated player IDs
+     */
+    static UUID[] populate(MapPlayerData data, int players) {
+        UUID[] ids = new UUID[players];
+        Random random = new Random(42);
+        for (int i = 0; i < players; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            data.setStat(ids[i], MAP_NAME, STAT_KEY, random.nextInt(100_000));
+            data.setStat(ids[i], MAP_NAME, "deaths", random.nextInt(100_000));
+        }
+        return ids;
+    }
+}
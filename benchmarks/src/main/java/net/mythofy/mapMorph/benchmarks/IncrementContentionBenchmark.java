@@ -0,0 +1,108 @@
+package net.mythofy.mapMorph.benchmarks;
+
+import net.mythofy.mapMorph.MapMorph;
+import net.mythofy.mapMorph.extensions.MapPlayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MapPlayerData#incrementStat} throughput with 1 to 32 threads.
+ * With {@code keys=distinct} every thread increments its own player's stat, like
+ * kills spread across a PvP map; with {@code keys=shared} all threads hit the
+ * same stat of the same player, the worst case for a single counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementContentionBenchmark {
+
+    @Param({"distinct", "shared"})
+    public String keys;
+
+    private MapPlayerData data;
+    private UUID[] ids;
+
+    @State(Scope.Thread)
+    public static class Player {
+        UUID id;
+
+        @Setup(Level.Trial)
+        public void setUp(IncrementContentionBenchmark benchmark, ThreadParams params) {
+            id = "shared".equals(benchmark.keys)
+                    ? benchmark.ids[0]
+                    : benchmark.ids[params.getThreadIndex() % benchmark.ids.length];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapMorph plugin = BenchmarkServer.start();
+        plugin.getConfig().set("player_data.save-stats", false);
+        data = new MapPlayerData(plugin);
+        ids = BenchmarkServer.populate(data, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Number threads01(Player player) {
+        return increment(player);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Number threads02(Player player) {
+        return increment(player);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Number threads04(Player player) {
+        return increment(player);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Number threads08(Player player) {
+        return increment(player);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Number threads16(Player player) {
+        return increment(player);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Number threads32(Player player) {
+        return increment(player);
+    }
+
+    private Number increment(Player player) {
+        return data.incrementStat(player.id, BenchmarkServer.MAP_NAME, BenchmarkServer.STAT_KEY);
+    }
+}
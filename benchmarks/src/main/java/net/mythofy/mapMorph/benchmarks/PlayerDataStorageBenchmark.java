@@ -0,0 +1,74 @@
+package net.mythofy.mapMorph.benchmarks;
+
+import net.mythofy.mapMorph.MapMorph;
+import net.mythofy.mapMorph.extensions.MapPlayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving and loading player data with each file-based storage backend.
+ * Each save follows a change to a single player, the common autosave case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlayerDataStorageBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int players;
+
+    @Param({"yaml", "binary"})
+    public String storage;
+
+    private MapMorph plugin;
+    private MapPlayerData data;
+    private UUID[] ids;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = BenchmarkServer.start();
+        plugin.getConfig().set("player_data.storage-method", storage);
+        data = new MapPlayerData(plugin);
+        ids = BenchmarkServer.populate(data, players);
+        // Make sure there is a file to load from
+        data.saveData();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void touchPlayer() {
+        data.incrementStat(ids[next++ % ids.length], BenchmarkServer.MAP_NAME, BenchmarkServer.STAT_KEY);
+    }
+
+    @Benchmark
+    public void save() {
+        data.saveData();
+    }
+
+    @Benchmark
+    public MapPlayerData load() {
+        return new MapPlayerData(plugin);
+    }
+}
@@ -0,0 +1,95 @@
+package net.mythofy.mapMorph.benchmarks;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import net.mythofy.mapMorph.AsyncCleanupUtil;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AsyncCleanupUtil#isInRegion} filtering over synthetic entity
+ * locations, comparing a scan of every entity in the world with a scan of only
+ * the chunks overlapping the region (what the cleanup task does).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionFilterBenchmark {
+
+    /** Entities spread over the world. */
+    @Param({"2000", "20000", "200000"})
+    public int entities;
+
+    private static final int WORLD_RADIUS = 2048;
+
+    private final BlockVector3 min = BlockVector3.at(-64, 0, -64);
+    private final BlockVector3 max = BlockVector3.at(63, 127, 63);
+
+    private List<Location> allEntities;
+    private Map<Long, List<Location>> entitiesByChunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(entities);
+        allEntities = new ArrayList<>(entities);
+        entitiesByChunk = new HashMap<>();
+        for (int i = 0; i < entities; i++) {
+            Location location = new Location(null,
+                    random.nextInt(WORLD_RADIUS * 2) - WORLD_RADIUS + random.nextDouble(),
+                    random.nextInt(256) - 64,
+                    random.nextInt(WORLD_RADIUS * 2) - WORLD_RADIUS + random.nextDouble());
+            allEntities.add(location);
+            entitiesByChunk.computeIfAbsent(chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4),
+                    k -> new ArrayList<>()).add(location);
+        }
+    }
+
+    @Benchmark
+    public void worldScan(Blackhole blackhole) {
+        for (Location location : allEntities) {
+            if (AsyncCleanupUtil.isInRegion(location, min, max)) {
+                blackhole.consume(location);
+            }
+        }
+    }
+
+    @Benchmark
+    public void chunkScan(Blackhole blackhole) {
+        for (int cx = min.getBlockX() >> 4; cx <= max.getBlockX() >> 4; cx++) {
+            for (int cz = min.getBlockZ() >> 4; cz <= max.getBlockZ() >> 4; cz++) {
+                List<Location> chunk = entitiesByChunk.get(chunkKey(cx, cz));
+                if (chunk == null) continue;
+                for (Location location : chunk) {
+                    if (AsyncCleanupUtil.isInRegion(location, min, max)) {
+                        blackhole.consume(location);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,166 @@
+package net.mythofy.mapMorph.benchmarks;
+
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntArrayTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.ShortTag;
+import com.sk89q.jnbt.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures reading Sponge (v2) {@code .schem} files of several sizes.
+ * <p>
+ * Fixtures are generated at setup time. A full {@code ClipboardReader} needs a
+ * loaded WorldEdit platform to resolve block states, so this covers the parts of
+ * the parse that don't: decompressing, reading the NBT tree and decoding the
+ * varint block data into palette IDs. Those dominate parse time for large maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchematicParseBenchmark {
+
+    private static final String[] PALETTE = {
+            "minecraft:air", "minecraft:stone", "minecraft:dirt", "minecraft:grass_block[snowy=false]",
+            "minecraft:oak_planks", "minecraft:cobblestone", "minecraft:glass", "minecraft:oak_log[axis=y]"
+    };
+
+    /** Edge length of the cubic fixture. */
+    @Param({"32", "96", "192"})
+    public int size;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("mapmorph-bench-" + size + "-", ".schem");
+        writeFixture(file, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public CompoundTag readNbt() throws IOException {
+        return read(file);
+    }
+
+    @Benchmark
+    public int[] readAndDecode() throws IOException {
+        Map<String, Tag> schematic = read(file).getValue();
+        int width = ((ShortTag) schematic.get("Width")).getValue();
+        int height = ((ShortTag) schematic.get("Height")).getValue();
+        int length = ((ShortTag) schematic.get("Length")).getValue();
+        byte[] blocks = ((ByteArrayTag) schematic.get("BlockData")).getValue();
+
+        int[] ids = new int[width * height * length];
+        int index = 0;
+        int i = 0;
+        while (i < blocks.length) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = blocks[i++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            ids[index++] = value;
+        }
+        return ids;
+    }
+
+    private static CompoundTag read(File file) throws IOException {
+        try (NBTInputStream in = new NBTInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            return (CompoundTag) in.readNamedTag().getTag();
+        }
+    }
+
+    /**
+     * Writes a terrain-like schematic: solid ground in the lower third,
+     * scattered structures above it and air on top.
+     */
+    static void writeFixture(File file, int size) throws IOException {
+        Random random = new Random(size);
+        ByteArrayOutputStream blockData = new ByteArrayOutputStream(size * size * size);
+        for (int y = 0; y < size; y++) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    int id;
+                    if (y < size / 3) {
+                        id = 1 + random.nextInt(3);
+                    } else if (y < size * 2 / 3 && random.nextInt(8) == 0) {
+                        id = 4 + random.nextInt(PALETTE.length - 4);
+                    } else {
+                        id = 0;
+                    }
+                    // Palette IDs are tiny, but encode them as varints like WorldEdit does
+                    while ((id & ~0x7F) != 0) {
+                        blockData.write((id & 0x7F) | 0x80);
+                        id >>>= 7;
+                    }
+                    blockData.write(id);
+                }
+            }
+        }
+
+        Map<String, Tag> palette = new HashMap<>();
+        for (int i = 0; i < PALETTE.length; i++) {
+            palette.put(PALETTE[i], new IntTag(i));
+        }
+
+        Map<String, Tag> schematic = new HashMap<>();
+        schematic.put("Version", new IntTag(2));
+        schematic.put("DataVersion", new IntTag(3700));
+        schematic.put("Width", new ShortTag((short) size));
+        schematic.put("Height", new ShortTag((short) size));
+        schematic.put("Length", new ShortTag((short) size));
+        schematic.put("Offset", new IntArrayTag(new int[] {0, 0, 0}));
+        schematic.put("PaletteMax", new IntTag(PALETTE.length));
+        schematic.put("Palette", new CompoundTag(palette));
+        schematic.put("BlockData", new ByteArrayTag(blockData.toByteArray()));
+        schematic.put("BlockEntities", new ListTag(CompoundTag.class, new ArrayList<CompoundTag>()));
+
+        try (NBTOutputStream out = new NBTOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))))) {
+            out.writeNamedTag("Schematic", new CompoundTag(schematic));
+        }
+    }
+}
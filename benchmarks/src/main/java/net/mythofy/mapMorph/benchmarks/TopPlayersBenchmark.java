@@ -0,0 +1,94 @@
+package net.mythofy.mapMorph.benchmarks;
+
+import net.mythofy.mapMorph.MapMorph;
+import net.mythofy.mapMorph.extensions.MapPlayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures leaderboard queries ({@link MapPlayerData#getTopPlayers} and
+ * {@link MapPlayerData#getPlayerRank}) as the number of tracked players grows.
+ * {@code fullSortTop10} repeats the old scan-and-sort approach on the same data
+ * as a baseline, and {@code updateStat} shows what keeping the leaderboard
+ * sorted costs each {@code setStat}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TopPlayersBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int players;
+
+    private MapPlayerData data;
+    private UUID[] ids;
+    private Map<UUID, Object> values;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapMorph plugin = BenchmarkServer.start();
+        plugin.getConfig().set("player_data.save-stats", false);
+        data = new MapPlayerData(plugin);
+        ids = BenchmarkServer.populate(data, players);
+        values = new HashMap<>();
+        for (UUID id : ids) {
+            values.put(id, data.getStat(id, BenchmarkServer.MAP_NAME, BenchmarkServer.STAT_KEY));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public Map<UUID, Object> top10() {
+        return data.getTopPlayers(BenchmarkServer.MAP_NAME, BenchmarkServer.STAT_KEY, 10);
+    }
+
+    @Benchmark
+    public int playerRank() {
+        UUID id = ids[next++ % ids.length];
+        return data.getPlayerRank(id, BenchmarkServer.MAP_NAME, BenchmarkServer.STAT_KEY);
+    }
+
+    @Benchmark
+    public Map<UUID, Object> fullSortTop10() {
+        return values.entrySet().stream()
+                .sorted((a, b) -> {
+                    @SuppressWarnings("unchecked")
+                    Comparable<Object> aVal = (Comparable<Object>) a.getValue();
+                    return -aVal.compareTo(b.getValue());
+                })
+                .limit(10)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+    }
+
+    @Benchmark
+    public void updateStat() {
+        int i = next++;
+        data.setStat(ids[i % ids.length], BenchmarkServer.MAP_NAME, BenchmarkServer.STAT_KEY, i);
+    }
+}
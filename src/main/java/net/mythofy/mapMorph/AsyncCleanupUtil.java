@@ -1,46 +1,151 @@
 package net.mythofy.mapMorph;
 
 import com.sk89q.worldedit.math.BlockVector3;
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Item;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.function.Consumer;
 
+/**
+ * Removes entities from a cuboid region without scanning every entity in the world.
+ * <p>
+ * Only the loaded chunks overlapping the region are visited, a few per tick, until
+ * the {@code schematics.cleanup-budget-ms} budget (scaled by the {@link TickHealthMonitor})
+ * is used up. Entity types are matched against a precompiled {@link EnumSet}.
+ */
 public class AsyncCleanupUtil {
 
+    /** Dropped items and all non-player living entities. */
+    private static final EnumSet<EntityType> ITEMS_AND_MOBS = compileDefaultFilter();
+
+    private static List<String> configuredTypes = null;
+    private static EnumSet<EntityType> configuredFilter = EnumSet.noneOf(EntityType.class);
+
     /**
      * Removes dropped items and mobs in the specified cuboid region.
+     * The work is spread over ticks on the main thread.
      * @param plugin The plugin instance
      * @param worldName The world name
      * @param min The minimum corner of the region
      * @param max The maximum corner of the region
      */
     public static void cleanupRegionAsync(Plugin plugin, String worldName, BlockVector3 min, BlockVector3 max) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            World world = Bukkit.getWorld(worldName);
-            if (world == null) return;
-
-            List<Entity> toRemove = world.getEntities().stream()
-                    .filter(e -> isInRegion(e.getLocation(), min, max) &&
-                            (e instanceof Item || (e instanceof LivingEntity && !(e instanceof Player))))
-                    .collect(Collectors.toList());
-
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                for (Entity entity : toRemove) {
-                    entity.remove();
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) return;
+        cleanupRegion(plugin, world, min, max, ITEMS_AND_MOBS, null);
+    }
+
+    /**
+     * Removes entities of the given types in the specified cuboid region, visiting only
+     * the loaded chunks that overlap it. Must be called from the main thread.
+     *
+     * @param plugin     The plugin instance (for scheduling and config)
+     * @param world      The world to clean up
+     * @param min        The minimum corner of the region
+     * @param max        The maximum corner of the region
+     * @param types      The entity types to remove
+     * @param onComplete Callback receiving the number of removed entities (may be null)
+     */
+    public static void cleanupRegion(Plugin plugin, World world, BlockVector3 min, BlockVector3 max,
+                                     EnumSet<EntityType> types, Consumer<Integer> onComplete) {
+        if (types.isEmpty()) {
+            if (onComplete != null) {
+                onComplete.accept(0);
+            }
+            return;
+        }
+
+        long budgetNanos = Math.max(1, plugin.getConfig().getInt("schematics.cleanup-budget-ms", 5)) * 1_000_000L;
+        long start = System.nanoTime();
+        new CleanupTask(plugin, world, min, max, types, budgetNanos, removed -> {
+            MetricsRegistry.record(plugin, MetricsRegistry.ENTITY_CLEANUP_TIME, (System.nanoTime() - start) / 1_000_000L);
+            if (onComplete != null) {
+                onComplete.accept(removed);
+            }
+        }).runTaskTimer(plugin, 0L, 1L);
+    }
+
+    /**
+     * Gets the entity types to clear before a paste, from {@code schematics.clear-entity-types}.
+     * The filter is only recompiled when the configured list changes.
+     *
+     * @param plugin The plugin instance
+     * @return The compiled filter
+     */
+    public static synchronized EnumSet<EntityType> getConfiguredFilter(Plugin plugin) {
+        List<String> types = plugin.getConfig().getStringList("schematics.clear-entity-types");
+        if (types.isEmpty() && !plugin.getConfig().isList("schematics.clear-entity-types")) {
+            types = Collections.singletonList("DROPPED_ITEM");
+        }
+        if (!types.equals(configuredTypes)) {
+            configuredFilter = compileFilter(plugin, types);
+            configuredTypes = new ArrayList<>(types);
+        }
+        return configuredFilter;
+    }
+
+    /**
+     * Compiles entity type names into an {@link EnumSet}. Besides plain type names,
+     * {@code ITEMS} and {@code MOBS} select dropped items and non-player living entities.
+     * Unknown names are logged and ignored.
+     *
+     * @param plugin The plugin instance (for logging)
+     * @param names  The entity type names
+     * @return The compiled filter
+     */
+    public static EnumSet<EntityType> compileFilter(Plugin plugin, List<String> names) {
+        EnumSet<EntityType> filter = EnumSet.noneOf(EntityType.class);
+        for (String name : names) {
+            String upper = name.trim().toUpperCase(Locale.ROOT);
+            if (upper.equals("ITEMS") || upper.equals("MOBS")) {
+                for (EntityType type : ITEMS_AND_MOBS) {
+                    Class<? extends Entity> entityClass = type.getEntityClass();
+                    if (upper.equals("ITEMS") == Item.class.isAssignableFrom(entityClass)) {
+                        filter.add(type);
+                    }
                 }
-            });
-        });
+                continue;
+            }
+            try {
+                filter.add(EntityType.valueOf(upper));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Unknown entity type in schematics.clear-entity-types: " + name);
+            }
+        }
+        return filter;
+    }
+
+    private static EnumSet<EntityType> compileDefaultFilter() {
+        EnumSet<EntityType> filter = EnumSet.noneOf(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            Class<? extends Entity> entityClass = type.getEntityClass();
+            if (entityClass == null) continue;
+            if (Item.class.isAssignableFrom(entityClass)
+                    || (LivingEntity.class.isAssignableFrom(entityClass) && !Player.class.isAssignableFrom(entityClass))) {
+                filter.add(type);
+            }
+        }
+        return filter;
     }
 
-    private static boolean isInRegion(Location loc, BlockVector3 min, BlockVector3 max) {
+    /**
+     * Checks if a location is within a cuboid region defined by min and max BlockVector3.
+     */
+    public static boolean isInRegion(Location loc, BlockVector3 min, BlockVector3 max) {
         int x = loc.getBlockX();
         int y = loc.getBlockY();
         int z = loc.getBlockZ();
@@ -48,4 +153,77 @@ public class AsyncCleanupUtil {
                 && y >= min.getBlockY() && y <= max.getBlockY()
                 && z >= min.getBlockZ() && z <= max.getBlockZ();
     }
-}
\ No newline at end of file
+
+    /**
+     * Repeating main-thread task that cleans the region's chunks until the tick budget runs out.
+     */
+    private static class CleanupTask extends BukkitRunnable {
+        private final Plugin plugin;
+        private final World world;
+        private final BlockVector3 min;
+        private final BlockVector3 max;
+        private final EnumSet<EntityType> types;
+        private final long budgetNanos;
+        private final Consumer<Integer> onComplete;
+
+        private final int minChunkX;
+        private final int minChunkZ;
+        private final int chunksWide;
+        private final int totalChunks;
+
+        private int chunkIndex = 0;
+        private int removed = 0;
+        private boolean finished = false;
+
+        CleanupTask(Plugin plugin, World world, BlockVector3 min, BlockVector3 max, EnumSet<EntityType> types,
+                    long budgetNanos, Consumer<Integer> onComplete) {
+            this.plugin = plugin;
+            this.world = world;
+            this.min = min;
+            this.max = max;
+            this.types = types;
+            this.budgetNanos = budgetNanos;
+            this.onComplete = onComplete;
+            this.minChunkX = min.getBlockX() >> 4;
+            this.minChunkZ = min.getBlockZ() >> 4;
+            this.chunksWide = (max.getBlockX() >> 4) - minChunkX + 1;
+            this.totalChunks = chunksWide * ((max.getBlockZ() >> 4) - minChunkZ + 1);
+        }
+
+        @Override
+        public void run() {
+            if (finished) {
+                return;
+            }
+            long tickStart = System.nanoTime();
+            long tickBudget = TickHealthMonitor.scaleNanos(plugin, budgetNanos);
+            while (chunkIndex < totalChunks) {
+                int chunkX = minChunkX + chunkIndex % chunksWide;
+                int chunkZ = minChunkZ + chunkIndex / chunksWide;
+                chunkIndex++;
+
+                // Entities in unloaded chunks aren't in the world, so never load chunks just to clean them
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                        if (types.contains(entity.getType()) && isInRegion(entity.getLocation(), min, max)) {
+                            entity.remove();
+                            removed++;
+                        }
+                    }
+                }
+
+                if (System.nanoTime() - tickStart >= tickBudget) {
+                    break;
+                }
+            }
+
+            if (chunkIndex >= totalChunks) {
+                finished = true;
+                cancel();
+                if (onComplete != null) {
+                    onComplete.accept(removed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package net.mythofy.mapMorph;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records which blocks changed inside pasted map regions since their last paste.
+ * <p>
+ * Each region remembers the schematic it was pasted from and where. Changed
+ * positions are stored as packed {@code long} coordinates in a primitive hash set,
+ * so a match with a few thousand edits costs a few kilobytes. An incremental reset
+ * then only has to restore those positions from the cached clipboard.
+ */
+public class BlockChangeJournal {
+
+    private final Map<String, TrackedRegion> regions = new HashMap<>();
+    private final int maxEntries;
+
+    /**
+     * Creates a new block change journal.
+     *
+     * @param maxEntries Maximum positions recorded per region before it is marked as overflowed
+     */
+    public BlockChangeJournal(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Starts (or restarts) tracking the region a schematic was just pasted into.
+     * Any previously recorded changes for that schematic are discarded.
+     *
+     * @param schematic The schematic that was pasted
+     * @param world     The world it was pasted into
+     * @param min       The minimum corner of the pasted region
+     * @param max       The maximum corner of the pasted region
+     * @param pastedAt  The position the clipboard origin was pasted at
+     */
+    public synchronized void track(File schematic, World world, BlockVector3 min, BlockVector3 max, BlockVector3 pastedAt) {
+        regions.put(key(schematic), new TrackedRegion(world.getName(), min, max, pastedAt, schematic.lastModified()));
+    }
+
+    /**
+     * Stops tracking a schematic's region.
+     *
+     * @param schematic The schematic file
+     */
+    public synchronized void untrack(File schematic) {
+        regions.remove(key(schematic));
+    }
+
+    /**
+     * Records a block change if it lies inside any tracked region.
+     *
+     * @param block The block that changed
+     */
+    public synchronized void record(Block block) {
+        if (regions.isEmpty()) {
+            return;
+        }
+        String worldName = block.getWorld().getName();
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+        for (TrackedRegion region : regions.values()) {
+            if (region.contains(worldName, x, y, z) && !region.overflowed) {
+                region.positions.add(pack(x, y, z));
+                if (region.positions.size() > maxEntries) {
+                    // Too many changes to be worth restoring one by one
+                    region.overflowed = true;
+                    region.positions.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the tracked region for a schematic.
+     *
+     * @param schematic The schematic file
+     * @return The tracked region, or null if it isn't tracked
+     */
+    public synchronized TrackedRegion getRegion(File schematic) {
+        return regions.get(key(schematic));
+    }
+
+    /**
+     * Removes and returns all positions recorded for a schematic's region,
+     * sorted so that positions in the same chunk are adjacent.
+     *
+     * @param schematic The schematic file
+     * @return The packed positions, or null if the region isn't tracked or overflowed
+     */
+    public synchronized long[] drain(File schematic) {
+        TrackedRegion region = regions.get(key(schematic));
+        if (region == null || region.overflowed) {
+            return null;
+        }
+        long[] positions = region.positions.toArray();
+        region.positions.clear();
+        // Packed positions sort by x, z, y; sort by chunk first instead
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = toChunkOrder(positions[i]);
+        }
+        Arrays.sort(positions);
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = fromChunkOrder(positions[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Moves the chunk coordinates of a packed position to its high bits
+     * (22 bits chunk x, 22 bits chunk z, 4 bits x, 4 bits z, 12 bits y).
+     */
+    private static long toChunkOrder(long packed) {
+        long x = packed >>> 38;
+        long z = (packed >>> 12) & 0x3FFFFFF;
+        return (x >>> 4) << 42 | (z >>> 4) << 20 | (x & 0xF) << 16 | (z & 0xF) << 12 | (packed & 0xFFF);
+    }
+
+    private static long fromChunkOrder(long key) {
+        long x = (key >>> 42) << 4 | (key >>> 16) & 0xF;
+        long z = ((key >>> 20) & 0x3FFFFF) << 4 | (key >>> 12) & 0xF;
+        return x << 38 | z << 12 | (key & 0xFFF);
+    }
+
+    private static String key(File schematic) {
+        return schematic.getAbsoluteFile().getPath();
+    }
+
+    /**
+     * Packs block coordinates into a single long (26 bits x, 26 bits z, 12 bits y).
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    /**
+     * A pasted region whose block changes are being recorded.
+     */
+    public static class TrackedRegion {
+        private final String worldName;
+        private final BlockVector3 min;
+        private final BlockVector3 max;
+        private final BlockVector3 pastedAt;
+        private final long schematicLastModified;
+        private final LongHashSet positions = new LongHashSet();
+        private boolean overflowed = false;
+
+        TrackedRegion(String worldName, BlockVector3 min, BlockVector3 max, BlockVector3 pastedAt, long schematicLastModified) {
+            this.worldName = worldName;
+            this.min = min;
+            this.max = max;
+            this.pastedAt = pastedAt;
+            this.schematicLastModified = schematicLastModified;
+        }
+
+        /**
+         * Checks whether this region was pasted from the current version of a schematic
+         * at the given place, so restoring from that schematic gives the same blocks.
+         *
+         * @param schematic The schematic file
+         * @param world     The world name
+         * @param to        The paste position
+         * @return true if the journaled changes can be restored from the schematic
+         */
+        public boolean matches(File schematic, String world, BlockVector3 to) {
+            return worldName.equals(world) && pastedAt.equals(to) && schematicLastModified == schematic.lastModified();
+        }
+
+        boolean contains(String world, int x, int y, int z) {
+            return worldName.equals(world)
+                    && x >= min.getBlockX() && x <= max.getBlockX()
+                    && y >= min.getBlockY() && y <= max.getBlockY()
+                    && z >= min.getBlockZ() && z <= max.getBlockZ();
+        }
+
+        public String getWorldName() {
+            return worldName;
+        }
+
+        public BlockVector3 getMin() {
+            return min;
+        }
+
+        public BlockVector3 getMax() {
+            return max;
+        }
+
+        public BlockVector3 getPastedAt() {
+            return pastedAt;
+        }
+
+        /**
+         * Whether more changes were made than the journal keeps, in which case
+         * only a full reset can restore the region.
+         */
+        public boolean isOverflowed() {
+            return overflowed;
+        }
+
+        public int getChangeCount() {
+            return positions.size();
+        }
+    }
+
+    /**
+     * Minimal open-addressing hash set of primitive longs.
+     */
+    static class LongHashSet {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] table = new long[INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int size = 0;
+
+        void add(long value) {
+            if ((size + 1) * 2 > table.length) {
+                resize(table.length * 2);
+            }
+            int mask = table.length - 1;
+            int index = mix(value) & mask;
+            while (used[index]) {
+                if (table[index] == value) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            used[index] = true;
+            table[index] = value;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            table = new long[INITIAL_CAPACITY];
+            used = new boolean[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        long[] toArray() {
+            long[] result = new long[size];
+            int count = 0;
+            for (int i = 0; i < table.length; i++) {
+                if (used[i]) {
+                    result[count++] = table[i];
+                }
+            }
+            return result;
+        }
+
+        private void resize(int capacity) {
+            long[] oldTable = table;
+            boolean[] oldUsed = used;
+            table = new long[capacity];
+            used = new boolean[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldTable.length; i++) {
+                if (oldUsed[i]) {
+                    int index = mix(oldTable[i]) & mask;
+                    while (used[index]) {
+                        index = (index + 1) & mask;
+                    }
+                    used[index] = true;
+                    table[index] = oldTable[i];
+                }
+            }
+        }
+
+        private static int mix(long value) {
+            long h = value * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
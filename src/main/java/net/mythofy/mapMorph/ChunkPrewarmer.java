@@ -0,0 +1,177 @@
+package net.mythofy.mapMorph;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the chunks of a paste region ahead of the paste, so the paste doesn't
+ * load them synchronously on the main thread.
+ * <p>
+ * Cold chunks are loaded (or generated) with {@link World#getChunkAtAsync(int, int, boolean)}.
+ * Every chunk then gets a plugin chunk ticket, which keeps it loaded until
+ * {@link #release()} is called after the paste.
+ */
+public class ChunkPrewarmer {
+
+    private final Plugin plugin;
+    private final Map<World, Set<Long>> chunks = new LinkedHashMap<>();
+    private final Map<World, List<Long>> ticketed = new LinkedHashMap<>();
+    private int warmChunks = 0;
+    private int coldChunks = 0;
+    private long elapsedMillis = 0;
+    private boolean released = false;
+
+    /**
+     * Creates a prewarmer with no regions.
+     *
+     * @param plugin The plugin instance (owns the chunk tickets)
+     */
+    public ChunkPrewarmer(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Checks whether chunks should be prewarmed, from {@code schematics.prewarm-chunks}.
+     *
+     * @param plugin The plugin instance
+     * @return true if prewarming is enabled
+     */
+    public static boolean isEnabled(Plugin plugin) {
+        return plugin.getConfig().getBoolean("schematics.prewarm-chunks", true);
+    }
+
+    /**
+     * Adds every chunk a region touches. Chunks shared between regions are loaded once.
+     *
+     * @param world The world of the region
+     * @param min   The minimum corner of the region
+     * @param max   The maximum corner of the region
+     */
+    public void addRegion(World world, BlockVector3 min, BlockVector3 max) {
+        Set<Long> worldChunks = chunks.computeIfAbsent(world, w -> new LinkedHashSet<>());
+        for (int x = min.getBlockX() >> 4; x <= max.getBlockX() >> 4; x++) {
+            for (int z = min.getBlockZ() >> 4; z <= max.getBlockZ() >> 4; z++) {
+                worldChunks.add(chunkKey(x, z));
+            }
+        }
+    }
+
+    /**
+     * Loads and tickets every added chunk. Can be called from any thread; the
+     * chunks are requested from the main thread.
+     *
+     * @return A future completed on the main thread once every chunk is loaded and ticketed
+     */
+    public CompletableFuture<Void> start() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        runOnMain(() -> {
+            long startNanos = System.nanoTime();
+            List<CompletableFuture<?>> loads = new ArrayList<>();
+            for (Map.Entry<World, Set<Long>> entry : chunks.entrySet()) {
+                World world = entry.getKey();
+                for (long key : entry.getValue()) {
+                    int x = (int) (key >> 32);
+                    int z = (int) key;
+                    if (world.isChunkLoaded(x, z)) {
+                        warmChunks++;
+                        addTicket(world, key);
+                        continue;
+                    }
+                    coldChunks++;
+                    CompletableFuture<Void> load = new CompletableFuture<>();
+                    world.getChunkAtAsync(x, z, true).whenComplete((chunk, error) -> runOnMain(() -> {
+                        // A failed load is left to the paste, which loads the chunk itself
+                        if (error == null) {
+                            addTicket(world, key);
+                        }
+                        load.complete(null);
+                    }));
+                    loads.add(load);
+                }
+            }
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).thenRun(() -> {
+                elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+                if (plugin.getConfig().getBoolean("general.debug", false)) {
+                    plugin.getLogger().info("Prewarmed " + (warmChunks + coldChunks) + " chunks: " + warmChunks
+                            + " already loaded, " + coldChunks + " loaded in " + elapsedMillis + "ms");
+                }
+                future.complete(null);
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Removes the chunk tickets so the chunks can unload normally. Safe to call
+     * more than once and from any thread.
+     */
+    public void release() {
+        runOnMain(() -> {
+            released = true;
+            for (Map.Entry<World, List<Long>> entry : ticketed.entrySet()) {
+                for (long key : entry.getValue()) {
+                    entry.getKey().removePluginChunkTicket((int) (key >> 32), (int) key, plugin);
+                }
+            }
+            ticketed.clear();
+        });
+    }
+
+    /**
+     * Gets the number of chunks that were already loaded.
+     *
+     * @return The warm chunk count
+     */
+    public int getWarmChunks() {
+        return warmChunks;
+    }
+
+    /**
+     * Gets the number of chunks that had to be loaded or generated.
+     *
+     * @return The cold chunk count
+     */
+    public int getColdChunks() {
+        return coldChunks;
+    }
+
+    /**
+     * Gets the time taken to load every cold chunk.
+     *
+     * @return The elapsed milliseconds, 0 until the prewarm finishes
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    private void addTicket(World world, long key) {
+        if (released) {
+            // The swap ended before this chunk finished loading
+            return;
+        }
+        world.addPluginChunkTicket((int) (key >> 32), (int) key, plugin);
+        ticketed.computeIfAbsent(world, w -> new ArrayList<>()).add(key);
+    }
+
+    private void runOnMain(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
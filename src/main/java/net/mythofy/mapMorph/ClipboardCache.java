@@ -0,0 +1,361 @@
+package net.mythofy.mapMorph;
+
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Keeps parsed schematic clipboards in memory so swaps and previews don't
+ * have to decompress and parse the same file again.
+ * <p>
+ * Entries are keyed by file path and validated against the file's modification
+ * time and size, so editing a schematic on disk invalidates its entry. The cache
+ * is bounded by the total clipboard volume (in blocks) and evicts least recently
+ * used clipboards first.
+ */
+public class ClipboardCache {
+
+    private final Plugin plugin;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Clipboard>> pendingLoads = new ConcurrentHashMap<>();
+    private final ExecutorService parseExecutor;
+    private long cachedVolume = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates a new clipboard cache.
+     *
+     * @param plugin The plugin instance (for config and logging)
+     */
+    public ClipboardCache(Plugin plugin) {
+        this.plugin = plugin;
+
+        int threads = Math.max(1, plugin.getConfig().getInt("schematics.cache.parse-threads", 2));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.parseExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "MapMorph-Schematic-Parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets a clipboard through the plugin's shared cache, or reads it directly
+     * when the plugin doesn't provide one.
+     *
+     * @param plugin The plugin instance
+     * @param file   The schematic file
+     * @return The parsed clipboard
+     * @throws IOException if the file cannot be read
+     */
+    public static Clipboard getClipboard(Plugin plugin, File file) throws IOException {
+        if (plugin instanceof MapMorph && ((MapMorph) plugin).getClipboardCache() != null) {
+            return ((MapMorph) plugin).getClipboardCache().get(file);
+        }
+        return readClipboard(file);
+    }
+
+    /**
+     * Parses a clipboard in the background through the plugin's shared cache,
+     * or on Bukkit's async scheduler when the plugin doesn't provide one.
+     *
+     * @param plugin The plugin instance
+     * @param file   The schematic file
+     * @return A future completed with the parsed clipboard
+     */
+    public static CompletableFuture<Clipboard> getClipboardAsync(Plugin plugin, File file) {
+        if (plugin instanceof MapMorph && ((MapMorph) plugin).getClipboardCache() != null) {
+            return ((MapMorph) plugin).getClipboardCache().getAsync(file);
+        }
+        CompletableFuture<Clipboard> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                future.complete(readClipboard(file));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Reads and parses a schematic file without using the cache.
+     *
+     * @param file The schematic file
+     * @return The parsed clipboard
+     * @throws IOException if the file cannot be read
+     */
+    public static Clipboard readClipboard(File file) throws IOException {
+        ClipboardFormat format = ClipboardFormats.findByFile(file);
+        if (format == null) throw new IllegalArgumentException("Unknown schematic format: " + file.getName());
+        try (FileInputStream fis = new FileInputStream(file);
+             ClipboardReader reader = format.getReader(fis)) {
+            return reader.read();
+        }
+    }
+
+    /**
+     * Gets the clipboard for a schematic file, parsing it on a miss.
+     * This may block on disk I/O, so call it off the main thread.
+     *
+     * @param file The schematic file
+     * @return The parsed clipboard
+     * @throws IOException if the file cannot be read
+     */
+    public Clipboard get(File file) throws IOException {
+        // Share a background parse that is already running for this file
+        CompletableFuture<Clipboard> pending = pendingLoads.get(file.getAbsoluteFile().getPath());
+        if (pending != null) {
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return load(file);
+    }
+
+    private Clipboard load(File file) throws IOException {
+        File absolute = file.getAbsoluteFile();
+        String key = absolute.getPath();
+        long lastModified = absolute.lastModified();
+        long size = absolute.length();
+
+        if (isEnabled()) {
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.lastModified == lastModified && entry.size == size) {
+                        hits.incrementAndGet();
+                        return entry.clipboard;
+                    }
+                    // File changed on disk since it was cached
+                    removeEntry(key);
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        long parseStart = System.nanoTime();
+        Clipboard clipboard = readClipboard(absolute);
+        MetricsRegistry.record(plugin, MetricsRegistry.PARSE_TIME, (System.nanoTime() - parseStart) / 1_000_000L);
+        if (isEnabled()) {
+            put(key, new Entry(clipboard, lastModified, size, clipboard.getRegion().getVolume()));
+        }
+        return clipboard;
+    }
+
+    /**
+     * Parses a schematic on the cache's parser threads so it is ready in memory
+     * before it is needed. Concurrent requests for the same file share one parse.
+     *
+     * @param file The schematic file
+     * @return A future completed with the parsed clipboard
+     */
+    public CompletableFuture<Clipboard> getAsync(File file) {
+        String key = file.getAbsoluteFile().getPath();
+        CompletableFuture<Clipboard> pending = pendingLoads.get(key);
+        if (pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<Clipboard> future = new CompletableFuture<>();
+        CompletableFuture<Clipboard> existing = pendingLoads.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            parseExecutor.execute(() -> {
+                try {
+                    future.complete(load(file));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    pendingLoads.remove(key, future);
+                }
+            });
+        } catch (Exception e) {
+            // Executor was shut down
+            pendingLoads.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Starts parsing a schematic in the background, logging any failure.
+     *
+     * @param file The schematic file
+     */
+    public void preload(File file) {
+        if (isCached(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        getAsync(file).whenComplete((clipboard, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                plugin.getLogger().log(Level.WARNING, "Failed to preload schematic: " + file.getName(), cause);
+            } else if (plugin.getConfig().getBoolean("general.debug", false)) {
+                plugin.getLogger().info("Preloaded schematic " + file.getName() + " in "
+                        + (System.nanoTime() - start) / 1_000_000L + "ms");
+            }
+        });
+    }
+
+    /**
+     * Stops the background parser threads. Pending preloads are abandoned.
+     */
+    public void shutdown() {
+        parseExecutor.shutdownNow();
+        clear();
+    }
+
+    /**
+     * Checks whether a schematic is cached and still matches the file on disk.
+     *
+     * @param file The schematic file
+     * @return true if a call to {@link #get(File)} would be a hit
+     */
+    public synchronized boolean isCached(File file) {
+        File absolute = file.getAbsoluteFile();
+        Entry entry = entries.get(absolute.getPath());
+        return entry != null && entry.lastModified == absolute.lastModified() && entry.size == absolute.length();
+    }
+
+    /**
+     * Removes a schematic from the cache.
+     *
+     * @param file The schematic file
+     * @return true if the schematic was cached
+     */
+    public synchronized boolean invalidate(File file) {
+        if (removeEntry(file.getAbsoluteFile().getPath()) != null) {
+            invalidations.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all cached clipboards.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        cachedVolume = 0;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        long maxVolume = getMaxVolume();
+        if (entry.volume > maxVolume) {
+            // Never cache a clipboard that alone exceeds the budget
+            return;
+        }
+
+        removeEntry(key);
+        entries.put(key, entry);
+        cachedVolume += entry.volume;
+
+        // Evict least recently used entries until we are within budget
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (cachedVolume > maxVolume && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            iterator.remove();
+            cachedVolume -= eldest.getValue().volume;
+            evictions.incrementAndGet();
+            if (plugin.getConfig().getBoolean("general.debug", false)) {
+                plugin.getLogger().info("Evicted cached schematic: " + eldest.getKey());
+            }
+        }
+    }
+
+    private Entry removeEntry(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            cachedVolume -= removed.volume;
+        }
+        return removed;
+    }
+
+    private boolean isEnabled() {
+        return plugin.getConfig().getBoolean("schematics.cache.enabled", true);
+    }
+
+    private long getMaxVolume() {
+        return plugin.getConfig().getLong("schematics.cache.max-volume", 16_000_000L);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Gets the total volume of all cached clipboards.
+     *
+     * @return The cached volume in blocks
+     */
+    public synchronized long getCachedVolume() {
+        return cachedVolume;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final Clipboard clipboard;
+        private final long lastModified;
+        private final long size;
+        private final long volume;
+
+        Entry(Clipboard clipboard, long lastModified, long size, long volume) {
+            this.clipboard = clipboard;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.volume = volume;
+        }
+    }
+}
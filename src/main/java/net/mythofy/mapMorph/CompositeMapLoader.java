@@ -0,0 +1,204 @@
+package net.mythofy.mapMorph;
+
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads maps made of several schematics. A map can list its pieces under
+ * {@code maps.<map>.schematics}, either as a list of file names pasted at the
+ * map origin or as named sections:
+ * <pre>
+ * schematics:
+ *   main:
+ *     file: arena.schem
+ *   tower:
+ *     file: tower.schem
+ *     x: 120
+ *     y: 64
+ *     z: -40
+ * </pre>
+ * Sections without coordinates use the map origin, and {@code world} defaults to
+ * the map's world. Maps without the list use their single {@code schematic}.
+ * <p>
+ * All pieces are parsed at once on the clipboard cache's parser threads (bounded by
+ * {@code schematics.cache.parse-threads}) and pasted with
+ * {@link PasteEngine#pasteAll}, which interleaves pieces that don't overlap.
+ */
+public class CompositeMapLoader {
+
+    /**
+     * A schematic file of a map and where its origin is pasted.
+     */
+    public static final class MapPiece {
+        private final String name;
+        private final File file;
+        private final Location origin;
+
+        public MapPiece(String name, File file, Location origin) {
+            this.name = name;
+            this.file = file;
+            this.origin = origin;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public Location getOrigin() {
+            return origin;
+        }
+    }
+
+    private final MapMorph plugin;
+
+    /**
+     * Creates a loader.
+     *
+     * @param plugin The plugin instance
+     */
+    public CompositeMapLoader(MapMorph plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Resolves the schematic pieces of a map from config. Pieces whose file
+     * is missing or whose world isn't loaded are skipped with a warning.
+     *
+     * @param mapName The map name
+     * @return The pieces in paste order, empty if the map has nothing to paste
+     */
+    public List<MapPiece> getPieces(String mapName) {
+        List<MapPiece> pieces = new ArrayList<>();
+        FileConfiguration config = plugin.getConfig();
+        String path = "maps." + mapName;
+        Location mapOrigin = plugin.getPasteOriginForMap(mapName);
+
+        if (config.isList(path + ".schematics")) {
+            for (String fileName : config.getStringList(path + ".schematics")) {
+                addPiece(pieces, mapName, fileName, resolveFile(fileName), mapOrigin, true);
+            }
+        } else if (config.isConfigurationSection(path + ".schematics")) {
+            ConfigurationSection section = config.getConfigurationSection(path + ".schematics");
+            for (String key : section.getKeys(false)) {
+                ConfigurationSection piece = section.getConfigurationSection(key);
+                if (piece == null || piece.getString("file") == null) {
+                    plugin.getLogger().warning("Schematic '" + key + "' of map " + mapName + " has no file");
+                    continue;
+                }
+                addPiece(pieces, mapName, key, resolveFile(piece.getString("file")), resolveOrigin(piece, mapOrigin), true);
+            }
+        } else {
+            // A map without any schematic is valid, so a missing single schematic isn't reported
+            addPiece(pieces, mapName, "main", plugin.getSchematicFileForMap(mapName), mapOrigin, false);
+        }
+        return pieces;
+    }
+
+    /**
+     * Gets the schematic files a map's config names, without touching the disk:
+     * its listed pieces, or its {@code schematic} if set explicitly. A map that
+     * relies on the default {@code <map>.schem} (which may not exist) names none.
+     *
+     * @param mapName The map name
+     * @return The configured files in paste order
+     */
+    public List<File> getConfiguredFiles(String mapName) {
+        List<File> files = new ArrayList<>();
+        FileConfiguration config = plugin.getConfig();
+        String path = "maps." + mapName;
+        if (config.isList(path + ".schematics")) {
+            for (String fileName : config.getStringList(path + ".schematics")) {
+                files.add(resolveFile(fileName));
+            }
+        } else if (config.isConfigurationSection(path + ".schematics")) {
+            ConfigurationSection section = config.getConfigurationSection(path + ".schematics");
+            for (String key : section.getKeys(false)) {
+                ConfigurationSection piece = section.getConfigurationSection(key);
+                if (piece != null && piece.getString("file") != null) {
+                    files.add(resolveFile(piece.getString("file")));
+                }
+            }
+        } else if (config.getString(path + ".schematic", "").length() > 0) {
+            files.add(plugin.getSchematicFileForMap(mapName));
+        }
+        return files;
+    }
+
+    /**
+     * Starts parsing every piece at once.
+     *
+     * @param pieces The pieces to parse
+     * @return A future completed with the pasteable pieces in the same order,
+     *         or exceptionally if any piece fails to parse
+     */
+    public CompletableFuture<List<PasteEngine.Piece>> parseAll(List<MapPiece> pieces) {
+        List<CompletableFuture<Clipboard>> parses = new ArrayList<>();
+        for (MapPiece piece : pieces) {
+            parses.add(ClipboardCache.getClipboardAsync(plugin, piece.getFile()));
+        }
+        return CompletableFuture.allOf(parses.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<PasteEngine.Piece> parsed = new ArrayList<>();
+            for (int i = 0; i < pieces.size(); i++) {
+                Location origin = pieces.get(i).getOrigin();
+                parsed.add(new PasteEngine.Piece(parses.get(i).join(), origin.getWorld(),
+                        BlockVector3.at(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ())));
+            }
+            return parsed;
+        });
+    }
+
+    private void addPiece(List<MapPiece> pieces, String mapName, String name, File file, Location origin, boolean listed) {
+        if (!file.isFile()) {
+            if (listed) {
+                plugin.getLogger().warning("Schematic " + file.getName() + " of map " + mapName + " not found");
+            }
+            return;
+        }
+        if (origin == null) {
+            if (!listed) {
+                return;
+            }
+            plugin.getLogger().warning("Schematic '" + name + "' of map " + mapName + " has no paste origin in a loaded world");
+            return;
+        }
+        pieces.add(new MapPiece(name, file, origin));
+    }
+
+    private File resolveFile(String fileName) {
+        if (!fileName.contains(".")) {
+            fileName = fileName + ".schem";
+        }
+        return new File(plugin.getMapsFolder(), fileName);
+    }
+
+    private static Location resolveOrigin(ConfigurationSection piece, Location mapOrigin) {
+        World world;
+        if (piece.contains("world")) {
+            world = Bukkit.getWorld(piece.getString("world"));
+        } else {
+            world = mapOrigin != null ? mapOrigin.getWorld() : null;
+        }
+        if (world == null) {
+            return null;
+        }
+        if (!piece.contains("x") && !piece.contains("y") && !piece.contains("z")) {
+            // Without coordinates the piece goes at the map origin
+            return mapOrigin != null && mapOrigin.getWorld().equals(world) ? mapOrigin.clone() : null;
+        }
+        return new Location(world, piece.getInt("x"), piece.getInt("y"), piece.getInt("z"));
+    }
+}
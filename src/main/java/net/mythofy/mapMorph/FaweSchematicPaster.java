@@ -1,29 +1,25 @@
 package net.mythofy.mapMorph;
 
-import com.sk89q.worldedit.EditSession;
-import com.sk89q.worldedit.WorldEdit;
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
-import com.sk89q.worldedit.function.operation.Operation;
-import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.session.ClipboardHolder;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Sound;
-import org.bukkit.entity.Entity;
-import org.bukkit.entity.Item;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
@@ -59,122 +55,276 @@ public class FaweSchematicPaster {
      * @param onComplete  Callback to run after paste is complete
      */
     public static void pasteSchematicWithCountdown(Plugin plugin, File schematic, String worldName, Location origin, Location safeLoc, int countdown, Consumer<Boolean> onComplete) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try (FileInputStream fis = new FileInputStream(schematic)) {
-                var format = ClipboardFormats.findByFile(schematic);
-                if (format == null) throw new IllegalArgumentException("Unknown schematic format: " + schematic.getName());
-                ClipboardReader reader = format.getReader(fis);
-                Clipboard clipboard = reader.read();
-
-                org.bukkit.World bukkitWorld = Bukkit.getWorld(worldName);
-                if (bukkitWorld == null) throw new IllegalArgumentException("Bukkit world not found: " + worldName);
+        pasteSchematicWithCountdown(plugin, schematic, worldName, origin, safeLoc, countdown, null, onComplete);
+    }
 
-                // Calculate schematic region bounds
-                BlockVector3 min = clipboard.getRegion().getMinimumPoint().add(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ());
-                BlockVector3 max = clipboard.getRegion().getMaximumPoint().add(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ());
+    /**
+     * Pastes a schematic with a countdown, reporting paste progress as chunk sections are written.
+     *
+     * @param plugin      The plugin instance (for scheduling callbacks)
+     * @param schematic   The schematic file to paste
+     * @param worldName   The world to paste into
+     * @param origin      The origin location for the paste
+     * @param safeLoc     The location to teleport players to (if null, uses world spawn)
+     * @param countdown   Seconds to wait before pasting (0 for instant)
+     * @param onProgress  Callback receiving paste progress once per tick (may be null)
+     * @param onComplete  Callback to run after paste is complete
+     */
+    public static void pasteSchematicWithCountdown(Plugin plugin, File schematic, String worldName, Location origin, Location safeLoc, int countdown,
+                                                   Consumer<PasteProgress> onProgress, Consumer<Boolean> onComplete) {
+        pasteSchematic(plugin, schematic, worldName, origin, safeLoc, countdown, onProgress,
+                result -> onComplete.accept(result.isSuccess()));
+    }
 
+    /**
+     * Pastes a schematic with a countdown, handing the full paste result (including
+     * changed-block counts for diff pastes) to the completion callback.
+     * Uses {@code schematics.paste-mode} to decide between full and diff pastes.
+     *
+     * @param plugin      The plugin instance (for scheduling callbacks)
+     * @param schematic   The schematic file to paste
+     * @param worldName   The world to paste into
+     * @param origin      The origin location for the paste
+     * @param safeLoc     The location to teleport players to (if null, uses world spawn)
+     * @param countdown   Seconds to wait before pasting (0 for instant)
+     * @param onProgress  Callback receiving paste progress once per tick (may be null)
+     * @param onResult    Callback receiving the paste result
+     */
+    public static void pasteSchematic(Plugin plugin, File schematic, String worldName, Location origin, Location safeLoc, int countdown,
+                                      Consumer<PasteProgress> onProgress, Consumer<PasteResult> onResult) {
+        // Start parsing right away so it overlaps the countdown
+        CompletableFuture<Clipboard> parse = ClipboardCache.getClipboardAsync(plugin, schematic);
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            org.bukkit.World bukkitWorld = Bukkit.getWorld(worldName);
+            if (bukkitWorld == null) {
+                plugin.getLogger().severe("Failed to prepare schematic: " + schematic.getName() + " (Bukkit world not found: " + worldName + ")");
+                onResult.accept(PasteResult.failed());
+                return;
+            }
+            
+            // The paste region isn't known until the schematic is parsed, so count down for the whole world
+            List<Player> audience = countdown > 0 ? new ArrayList<>(bukkitWorld.getPlayers()) : new ArrayList<>();
+            BlockVector3 to = BlockVector3.at(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ());
+            ChunkPrewarmer prewarmer = new ChunkPrewarmer(plugin);
+            // Load the paste region's chunks during the rest of the countdown
+            CompletableFuture<Clipboard> ready = !ChunkPrewarmer.isEnabled(plugin) ? parse
+                    : parse.thenCompose(clipboard -> {
+                        BlockVector3 offset = PasteEngine.getPasteOffset(clipboard, to);
+                        prewarmer.addRegion(bukkitWorld, clipboard.getRegion().getMinimumPoint().add(offset),
+                                clipboard.getRegion().getMaximumPoint().add(offset));
+                        return prewarmer.start().thenApply(ignored -> clipboard);
+                    });
+            startCountdown(plugin, audience, countdown, () -> awaitParse(plugin, ready, audience, () -> {
+                Clipboard clipboard;
+                try {
+                    clipboard = ready.join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    plugin.getLogger().log(Level.SEVERE, "Failed to prepare schematic: " + schematic.getName(), cause);
+                    prewarmer.release();
+                    onResult.accept(PasteResult.failed());
+                    return;
+                }
+                
+                // Calculate schematic region bounds (the clipboard origin lands on the paste origin)
+                BlockVector3 offset = PasteEngine.getPasteOffset(clipboard, to);
+                BlockVector3 min = clipboard.getRegion().getMinimumPoint().add(offset);
+                BlockVector3 max = clipboard.getRegion().getMaximumPoint().add(offset);
+                
                 List<Player> playersInRegion = bukkitWorld.getPlayers().stream()
-                        .filter(p -> isInRegion(p.getLocation(), min, max))
+                        .filter(p -> AsyncCleanupUtil.isInRegion(p.getLocation(), min, max))
                         .collect(Collectors.toCollection(ArrayList::new));
-
-                // Run countdown on main thread
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    if (countdown > 0) {
-                        for (Player player : playersInRegion) {
-                            player.sendTitle("§eMap changing soon!", "§fTeleporting in " + countdown + " seconds...", 10, 70, 20);
-                            player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_PLING, 1, 1);
-                        }
-                    }
-                    runCountdown(plugin, playersInRegion, countdown, () -> {
-                        // Check if fade effect is enabled in config
-                        boolean useFadeEffect = true; // default
-                        if (plugin instanceof MapMorph) {
-                            useFadeEffect = ((MapMorph) plugin).getConfig().getBoolean("schematics.use-fade-effect", true);
-                        }
-                        
-                        if (useFadeEffect) {
-                            // Fade-to-black (blindness) for 2 seconds
-                            for (Player player : playersInRegion) {
-                                player.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 40, 1, false, false, false));
-                            }
-                        }
-                    
-                        // Check if teleport is enabled in config
-                        boolean teleportPlayers = true; // default
-                        if (plugin instanceof MapMorph) {
-                            teleportPlayers = ((MapMorph) plugin).getConfig().getBoolean("schematics.teleport-players", true);
-                        }
-                        
-                        if (teleportPlayers) {
-                            // Teleport players to safe location
-                            Location safe = safeLoc != null ? safeLoc : bukkitWorld.getSpawnLocation();
-                            
-                            // Get message from config if possible
-                            String teleportMessage = "§eYou were moved to safety for a map update!";
-                            if (plugin instanceof MapMorph) {
-                                teleportMessage = ((MapMorph) plugin).getConfig().getString("schematics.transition-message", teleportMessage)
-                                        .replace("&", "§"); // Convert color codes
-                            }
-                            
-                            for (Player player : playersInRegion) {
-                                player.teleport(safe);
-                                player.sendMessage(teleportMessage);
-                            }
-                        }
-
-                        // Check if entity clearing is enabled in config
-                        boolean clearEntities = true; // default
-                        if (plugin instanceof MapMorph) {
-                            clearEntities = ((MapMorph) plugin).getConfig().getBoolean("schematics.clear-entities", true);
+                evacuate(plugin, playersInRegion, safeLoc != null ? safeLoc : bukkitWorld.getSpawnLocation()).thenRun(() -> {
+                    // Remove entities (dropped items by default) from the region's chunks, then paste
+                    EnumSet<EntityType> clearTypes = getClearTypes(plugin);
+                    AsyncCleanupUtil.cleanupRegion(plugin, bukkitWorld, min, max, clearTypes, removed -> {
+                        if (removed > 0 && plugin.getConfig().getBoolean("general.debug", false)) {
+                            plugin.getLogger().info("Cleared " + removed + " entities before pasting " + schematic.getName());
                         }
                         
-                        if (clearEntities) {
-                            // Remove dropped items in the region
-                            List<Entity> items = bukkitWorld.getEntities().stream()
-                                    .filter(e -> e instanceof Item && isInRegion(e.getLocation(), min, max))
-                                    .collect(Collectors.toCollection(ArrayList::new));
-                            for (Entity item : items) {
-                                item.remove();
+                        // Paste in tick-budgeted chunk sections (or hand off to FAWE)
+                        boolean diff = PasteEngine.isDiffMode(plugin);
+                        PasteEngine.paste(plugin, clipboard, bukkitWorld, to, false, diff, onProgress, result -> {
+                            prewarmer.release();
+                            if (!result.isSuccess()) {
+                                plugin.getLogger().severe("Failed to paste schematic: " + schematic.getName());
+                            } else {
+                                // Start journaling changes against the freshly pasted map
+                                BlockChangeJournal journal = getJournal(plugin);
+                                if (journal != null) {
+                                    journal.track(schematic, bukkitWorld, min, max, to);
+                                }
+                                if (plugin.getConfig().getBoolean("general.debug", false)) {
+                                    plugin.getLogger().info("Pasted " + schematic.getName() + ": " + result.getChangedBlocks()
+                                            + " blocks changed, " + result.getUnchangedBlocks() + " unchanged in "
+                                            + result.getElapsedMillis() + "ms");
+                                }
                             }
-                        }
-
-                        // Now paste the schematic on the main thread
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            boolean success = false;
-                            try {
-                                // Create WorldEdit session
-                                EditSession editSession = WorldEdit.getInstance().newEditSession(
-                                        BukkitAdapter.adapt(bukkitWorld)
-                                );
-                                
-                                // Paste the schematic
-                                BlockVector3 to = BlockVector3.at(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ());
-                                ClipboardHolder holder = new ClipboardHolder(clipboard);
-                                
-                                Operation operation = holder
-                                        .createPaste(editSession)
-                                        .to(to)
-                                        .ignoreAirBlocks(false)
-                                        .build();
-                                
-                                Operations.complete(operation);
-                                editSession.close();
-                                success = true;
-                            } catch (Exception e) {
-                                plugin.getLogger().log(Level.SEVERE, "Failed to paste schematic: " + schematic.getName(), e);
-                            }
-                            boolean finalSuccess = success;
-                            onComplete.accept(finalSuccess);
+                            onResult.accept(result);
                         });
                     });
                 });
+            }));
+        });
+    }
+
+    /**
+     * Resets a pasted map to its schematic. With {@code schematics.reset-mode: incremental}
+     * and the block change journal enabled, only the positions changed since the last paste
+     * are restored. Otherwise (or if the journal can't be used) the schematic is pasted again
+     * without a countdown.
+     *
+     * @param plugin    The plugin instance (for scheduling callbacks)
+     * @param schematic The schematic file the map was pasted from
+     * @param worldName The world the map is in
+     * @param origin    The origin location of the paste
+     * @param onResult  Callback receiving the reset result
+     */
+    public static void resetSchematic(Plugin plugin, File schematic, String worldName, Location origin, Consumer<PasteResult> onResult) {
+        BlockChangeJournal journal = getJournal(plugin);
+        boolean incremental = "incremental".equalsIgnoreCase(plugin.getConfig().getString("schematics.reset-mode", "full"));
+        BlockVector3 to = BlockVector3.at(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ());
+        org.bukkit.World bukkitWorld = Bukkit.getWorld(worldName);
+
+        BlockChangeJournal.TrackedRegion region = journal != null ? journal.getRegion(schematic) : null;
+        if (!incremental || bukkitWorld == null || region == null || region.isOverflowed()
+                || !region.matches(schematic, worldName, to)) {
+            pasteSchematic(plugin, schematic, worldName, origin, null, 0, null, onResult);
+            return;
+        }
+
+        long[] positions = journal.drain(schematic);
+        if (positions == null) {
+            pasteSchematic(plugin, schematic, worldName, origin, null, 0, null, onResult);
+            return;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                Clipboard clipboard = ClipboardCache.getClipboard(plugin, schematic);
+                Bukkit.getScheduler().runTask(plugin, () ->
+                        PasteEngine.restore(plugin, clipboard, bukkitWorld, to, positions, result -> {
+                            if (!result.isSuccess()) {
+                                plugin.getLogger().warning("Incremental reset of " + schematic.getName()
+                                        + " failed, pasting the full schematic instead");
+                                pasteSchematic(plugin, schematic, worldName, origin, null, 0, null, onResult);
+                                return;
+                            }
+                            if (plugin.getConfig().getBoolean("general.debug", false)) {
+                                plugin.getLogger().info("Reset " + schematic.getName() + ": restored "
+                                        + result.getBlocksPlaced() + " journaled blocks in " + result.getElapsedMillis() + "ms");
+                            }
+                            onResult.accept(result);
+                        }));
             } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to prepare schematic: " + schematic.getName(), e);
-                Bukkit.getScheduler().runTask(plugin, () -> onComplete.accept(false));
+                // The drained positions are gone, so only a full paste undoes them now
+                plugin.getLogger().log(Level.SEVERE, "Failed to prepare schematic for an incremental reset: "
+                        + schematic.getName() + ", pasting the full schematic instead", e);
+                Bukkit.getScheduler().runTask(plugin, () ->
+                        pasteSchematic(plugin, schematic, worldName, origin, null, 0, null, onResult));
             }
         });
     }
 
+    /**
+     * Shows the "map changing" title and counts down in the action bar.
+     * Must be called on the main thread.
+     *
+     * @param plugin   The plugin instance
+     * @param players  The players to count down for
+     * @param seconds  Seconds to count down (0 runs {@code onFinish} immediately)
+     * @param onFinish Run on the main thread when the countdown ends
+     */
+    static void startCountdown(Plugin plugin, List<Player> players, int seconds, Runnable onFinish) {
+        if (seconds > 0) {
+            for (Player player : players) {
+                player.sendTitle("§eMap changing soon!", "§fTeleporting in " + seconds + " seconds...", 10, 70, 20);
+                player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_PLING, 1, 1);
+            }
+        }
+        runCountdown(plugin, players, seconds, onFinish);
+    }
+
+    /**
+     * Runs {@code onReady} on the main thread once a background parse is done.
+     * If the countdown ran out first, players are told the map is still being
+     * prepared every second until it is. Must be called on the main thread.
+     *
+     * @param plugin  The plugin instance
+     * @param parse   The parse to wait for (successful or not)
+     * @param players The players who saw the countdown
+     * @param onReady Run on the main thread when the parse has finished
+     */
+    static void awaitParse(Plugin plugin, CompletableFuture<?> parse, List<Player> players, Runnable onReady) {
+        if (parse.isDone()) {
+            onReady.run();
+            return;
+        }
+        
+        String message = plugin.getConfig().getString("schematics.preparing-message", "&eStill preparing the map...")
+                .replace("&", "§"); // Convert color codes
+        BukkitTask notice = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            for (Player player : players) {
+                player.sendActionBar(message);
+            }
+        }, 0L, 20L);
+        long waitStart = System.nanoTime();
+        parse.whenComplete((result, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            notice.cancel();
+            if (plugin.getConfig().getBoolean("general.debug", false)) {
+                plugin.getLogger().info("Schematic parsing outlasted the countdown by "
+                        + (System.nanoTime() - waitStart) / 1_000_000L + "ms");
+            }
+            onReady.run();
+        }));
+    }
+
+    /**
+     * Fades players out and moves them to safety before their area is pasted over,
+     * as configured by {@code schematics.use-fade-effect} and {@code schematics.teleport-players}.
+     *
+     * @param plugin  The plugin instance
+     * @param players The players in the paste region
+     * @param safe    Where to teleport them
+     * @return A future completed on the main thread once everyone has been moved
+     */
+    static CompletableFuture<TeleportResult> evacuate(Plugin plugin, List<Player> players, Location safe) {
+        if (plugin.getConfig().getBoolean("schematics.use-fade-effect", true)) {
+            // Fade-to-black (blindness) for 2 seconds
+            for (Player player : players) {
+                player.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 40, 1, false, false, false));
+            }
+        }
+        
+        if (plugin.getConfig().getBoolean("schematics.teleport-players", true)) {
+            String teleportMessage = plugin.getConfig().getString("schematics.transition-message",
+                    "§eYou were moved to safety for a map update!").replace("&", "§"); // Convert color codes
+            // Spread over ticks so a full arena doesn't load every destination chunk at once
+            Map<Player, Location> destinations = new LinkedHashMap<>();
+            for (Player player : players) {
+                destinations.put(player, safe);
+            }
+            return TeleportScheduler.teleport(plugin, destinations, player -> player.sendMessage(teleportMessage));
+        }
+        return CompletableFuture.completedFuture(TeleportResult.empty());
+    }
+
+    /**
+     * Gets the entity types to remove before a paste, or none if
+     * {@code schematics.clear-entities} is off.
+     *
+     * @param plugin The plugin instance
+     * @return The entity types to clear
+     */
+    static EnumSet<EntityType> getClearTypes(Plugin plugin) {
+        return plugin.getConfig().getBoolean("schematics.clear-entities", true)
+                ? AsyncCleanupUtil.getConfiguredFilter(plugin)
+                : EnumSet.noneOf(EntityType.class);
+    }
+
+    static BlockChangeJournal getJournal(Plugin plugin) {
+        return plugin instanceof MapMorph ? ((MapMorph) plugin).getBlockChangeJournal() : null;
+    }
+
     private static void runCountdown(Plugin plugin, List<Player> players, int seconds, Runnable onFinish) {
         if (seconds <= 0) {
             onFinish.run();
@@ -203,16 +353,4 @@ public class FaweSchematicPaster {
             }
         }, 20L); // 20 ticks = 1 second
     }
-
-    /**
-     * Checks if a location is within a cuboid region defined by min and max BlockVector3.
-     */
-    private static boolean isInRegion(Location loc, BlockVector3 min, BlockVector3 max) {
-        int x = loc.getBlockX();
-        int y = loc.getBlockY();
-        int z = loc.getBlockZ();
-        return x >= min.getBlockX() && x <= max.getBlockX()
-            && y >= min.getBlockY() && y <= max.getBlockY()
-            && z >= min.getBlockZ() && z <= max.getBlockZ();
-    }
 }
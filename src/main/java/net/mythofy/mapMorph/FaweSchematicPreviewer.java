@@ -5,7 +5,6 @@ import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -16,7 +15,6 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -45,15 +43,13 @@ public class FaweSchematicPreviewer {
         clearExistingPreview(player);
         
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try (FileInputStream fis = new FileInputStream(schematic)) {
-                var format = ClipboardFormats.findByFile(schematic);
-                if (format == null) {
+            try {
+                if (ClipboardFormats.findByFile(schematic) == null) {
                     player.sendMessage("§cUnknown schematic format: " + schematic.getName());
                     return;
                 }
                 
-                ClipboardReader reader = format.getReader(fis);
-                Clipboard clipboard = reader.read();
+                Clipboard clipboard = ClipboardCache.getClipboard(plugin, schematic);
                 
                 // Run on main thread to be safe with WorldEdit API
                 Bukkit.getScheduler().runTask(plugin, () -> {
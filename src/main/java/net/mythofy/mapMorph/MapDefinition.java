@@ -0,0 +1,250 @@
+package net.mythofy.mapMorph;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A map's configuration, compiled once from {@code maps.<map>} so lookups
+ * don't walk the config. Instances are immutable; the {@link MapRegistry}
+ * replaces them as a whole when the config changes.
+ * <p>
+ * Locations are handed out as copies, so callers may modify them freely.
+ */
+public final class MapDefinition {
+
+    private final String name;
+    private final String displayName;
+    private final String description;
+    private final String worldName;
+    private final File schematicFile;
+    private final Location origin;
+    private final List<Location> spawns;
+    private final Map<String, String> unresolvedSpawns;
+    private final Map<String, List<Location>> teamSpawns;
+    private final List<String> regionIds;
+    private final Map<String, List<String>> commands;
+    private final Map<String, Object> settings;
+
+    private MapDefinition(String name, String displayName, String description, String worldName, File schematicFile,
+                          Location origin, List<Location> spawns, Map<String, String> unresolvedSpawns,
+                          Map<String, List<Location>> teamSpawns, List<String> regionIds,
+                          Map<String, List<String>> commands, Map<String, Object> settings) {
+        this.name = name;
+        this.displayName = displayName;
+        this.description = description;
+        this.worldName = worldName;
+        this.schematicFile = schematicFile;
+        this.origin = origin;
+        this.spawns = spawns;
+        this.unresolvedSpawns = unresolvedSpawns;
+        this.teamSpawns = teamSpawns;
+        this.regionIds = regionIds;
+        this.commands = commands;
+        this.settings = settings;
+    }
+
+    /**
+     * Compiles a map's config section.
+     *
+     * @param name        The map name
+     * @param section     The {@code maps.<map>} section
+     * @param mapsFolder  The folder schematics are resolved against
+     * @return The compiled definition
+     */
+    static MapDefinition compile(String name, ConfigurationSection section, File mapsFolder) {
+        String worldName = section.getString("world", "world");
+        World world = Bukkit.getWorld(worldName);
+        Location origin = world == null ? null : new Location(world,
+                section.getInt("origin.x"), section.getInt("origin.y"), section.getInt("origin.z"));
+
+        String schematic = section.getString("schematic");
+        File schematicFile;
+        if (schematic == null || schematic.isEmpty()) {
+            schematicFile = new File(mapsFolder, name + ".schem");
+        } else {
+            schematicFile = new File(mapsFolder, schematic.contains(".") ? schematic : schematic + ".schem");
+        }
+
+        List<Location> spawns = new ArrayList<>();
+        Map<String, String> unresolvedSpawns = new LinkedHashMap<>();
+        readSpawns(section.getConfigurationSection("spawns"), spawns, unresolvedSpawns);
+
+        Map<String, List<Location>> teamSpawns = new LinkedHashMap<>();
+        ConfigurationSection teams = section.getConfigurationSection("teams");
+        if (teams != null) {
+            for (String team : teams.getKeys(false)) {
+                List<Location> locations = new ArrayList<>();
+                readSpawns(teams.getConfigurationSection(team + ".spawns"), locations, new LinkedHashMap<>());
+                teamSpawns.put(team, Collections.unmodifiableList(locations));
+            }
+        }
+
+        Map<String, List<String>> commands = new LinkedHashMap<>();
+        ConfigurationSection commandSection = section.getConfigurationSection("commands");
+        if (commandSection != null) {
+            for (String eventType : commandSection.getKeys(false)) {
+                List<String> eventCommands = commandSection.getStringList(eventType);
+                if (!eventCommands.isEmpty()) {
+                    commands.put(eventType, Collections.unmodifiableList(new ArrayList<>(eventCommands)));
+                }
+            }
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+            if (!(entry.getValue() instanceof ConfigurationSection)) {
+                settings.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return new MapDefinition(
+                name,
+                section.getString("display-name", name),
+                section.getString("description", "No description"),
+                worldName,
+                schematicFile,
+                origin,
+                Collections.unmodifiableList(spawns),
+                Collections.unmodifiableMap(unresolvedSpawns),
+                Collections.unmodifiableMap(teamSpawns),
+                Collections.unmodifiableList(new ArrayList<>(section.getStringList("regions"))),
+                Collections.unmodifiableMap(commands),
+                Collections.unmodifiableMap(settings));
+    }
+
+    private static void readSpawns(ConfigurationSection section, List<Location> spawns, Map<String, String> unresolved) {
+        if (section == null) {
+            return;
+        }
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection spawn = section.getConfigurationSection(key);
+            if (spawn == null) {
+                continue;
+            }
+            String world = spawn.getString("world");
+            World bukkitWorld = world != null ? Bukkit.getWorld(world) : null;
+            if (bukkitWorld == null) {
+                unresolved.put(key, world);
+                continue;
+            }
+            spawns.add(new Location(bukkitWorld, spawn.getDouble("x"), spawn.getDouble("y"), spawn.getDouble("z"),
+                    (float) spawn.getDouble("yaw"), (float) spawn.getDouble("pitch")));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the display name with color codes untranslated.
+     *
+     * @return The display name, or the map name if none is set
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the world the map's schematic is pasted into.
+     *
+     * @return The world name from {@code maps.<map>.world}
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Gets the map's single schematic file (which may not exist).
+     *
+     * @return The schematic file
+     */
+    public File getSchematicFile() {
+        return schematicFile;
+    }
+
+    /**
+     * Gets the location the schematic's origin is pasted at.
+     *
+     * @return A copy of the paste origin, or null if the map's world wasn't loaded when compiled
+     */
+    public Location getOrigin() {
+        return origin != null ? origin.clone() : null;
+    }
+
+    /**
+     * Gets the spawn points whose worlds are loaded.
+     *
+     * @return Copies of the spawn locations in config order
+     */
+    public List<Location> getSpawns() {
+        return copyOf(spawns);
+    }
+
+    /**
+     * Gets the spawn points that couldn't be resolved because their world isn't loaded.
+     *
+     * @return Spawn key to world name
+     */
+    public Map<String, String> getUnresolvedSpawns() {
+        return unresolvedSpawns;
+    }
+
+    /**
+     * Gets the spawn points of every team.
+     *
+     * @return Team name to copies of its spawn locations, empty if the map has no teams
+     */
+    public Map<String, List<Location>> getTeamSpawns() {
+        Map<String, List<Location>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Location>> entry : teamSpawns.entrySet()) {
+            copy.put(entry.getKey(), copyOf(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static List<Location> copyOf(List<Location> locations) {
+        List<Location> copy = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            copy.add(location.clone());
+        }
+        return copy;
+    }
+
+    public List<String> getRegionIds() {
+        return regionIds;
+    }
+
+    /**
+     * Gets the commands configured for an event type.
+     *
+     * @param eventType The event type (e.g., "on-load", "on-enter")
+     * @return The commands, empty if none are configured
+     */
+    public List<String> getCommands(String eventType) {
+        return commands.getOrDefault(eventType, Collections.emptyList());
+    }
+
+    /**
+     * Gets any other value from the map's config section.
+     *
+     * @param path The path relative to {@code maps.<map>}
+     * @return The value, or null if not set
+     */
+    public Object getSetting(String path) {
+        return settings.get(path);
+    }
+}
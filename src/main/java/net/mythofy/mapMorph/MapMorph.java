@@ -3,14 +3,15 @@ package net.mythofy.mapMorph;
 import net.mythofy.mapMorph.api.MapChangeEvent;
 import net.mythofy.mapMorph.api.MapMorphAPI;
 import net.mythofy.mapMorph.extensions.MapPlayerData;
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
+import net.mythofy.mapMorph.metrics.PrometheusExporter;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
-import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 
@@ -20,12 +21,46 @@ public final class MapMorph extends JavaPlugin {
     private final Deque<String> mapHistory = new ArrayDeque<>();
     private String currentMap = null;
     private final MapChangeListener mapChangeListener = new MapChangeListener();
+    private ClipboardCache clipboardCache;
+    private MapRotationManager rotationManager;
+    private BlockChangeJournal blockChangeJournal;
+    private MapPlayerData playerDataManager;
+    private MapSwapPipeline swapPipeline;
+    private MapRegistry mapRegistry;
+    private MetricsRegistry metricsRegistry;
+    private PrometheusExporter prometheusExporter;
+    private TickHealthMonitor tickHealthMonitor;
+    private SchematicIndex schematicIndex;
+    private SchematicWatcher schematicWatcher;
 
     @Override
     public void onEnable() {
         // Save the default configuration
         saveDefaultConfig();
         
+        // Timings of parses, pastes, cleanups, teleports and saves
+        metricsRegistry = new MetricsRegistry();
+        prometheusExporter = new PrometheusExporter(this, metricsRegistry);
+        prometheusExporter.applyConfig();
+        
+        // Scales per-tick work to server load
+        tickHealthMonitor = new TickHealthMonitor(this);
+        
+        // Shared cache of parsed schematics
+        clipboardCache = new ClipboardCache(this);
+        
+        // Record block changes in pasted maps so resets can restore only what changed
+        if (getConfig().getBoolean("schematics.journal.enabled", false)) {
+            blockChangeJournal = new BlockChangeJournal(getConfig().getInt("schematics.journal.max-entries", 500000));
+            getServer().getPluginManager().registerEvents(new BlockChangeJournalListener(blockChangeJournal), this);
+        }
+        
+        // Runs map swaps stage by stage for commands, rotation and the API
+        swapPipeline = new MapSwapPipeline(this);
+        
+        // Load per-map player stats before the API hands them out
+        playerDataManager = new MapPlayerData(this);
+        
         // Initialize the API with this plugin instance
         try {
             // Try to initialize the API (static method)
@@ -69,6 +104,20 @@ public final class MapMorph extends JavaPlugin {
             }
         }
 
+        // Compile map definitions once; lookups read the compiled copies
+        mapRegistry = new MapRegistry(this);
+
+        // Index schematic headers in the background for listing, validation and tab completion
+        schematicIndex = new SchematicIndex(this);
+        schematicIndex.rebuildAsync();
+
+        // Pick up added or edited schematics without /mapmorph reload
+        schematicWatcher = new SchematicWatcher(this);
+        schematicWatcher.applyConfig();
+
+        // Start automatic map rotation (also preloads the upcoming map's schematic)
+        rotationManager = new MapRotationManager(this);
+
         // Display ASCII logo in console
         printASCIILogo();
         
@@ -124,6 +173,21 @@ public final class MapMorph extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (rotationManager != null) {
+            rotationManager.stopRotation();
+        }
+        if (clipboardCache != null) {
+            clipboardCache.shutdown();
+        }
+        if (playerDataManager != null) {
+            playerDataManager.onDisable();
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
+        if (schematicWatcher != null) {
+            schematicWatcher.stop();
+        }
         getLogger().info("MapMorph disabled!");
     }
     
@@ -131,6 +195,24 @@ public final class MapMorph extends JavaPlugin {
         return mapsFolder;
     }
     
+    /**
+     * Gets the shared cache of parsed schematic clipboards.
+     * 
+     * @return The clipboard cache
+     */
+    public ClipboardCache getClipboardCache() {
+        return clipboardCache;
+    }
+    
+    /**
+     * Gets the journal of block changes made in pasted maps.
+     * 
+     * @return The block change journal, or null if {@code schematics.journal.enabled} is off
+     */
+    public BlockChangeJournal getBlockChangeJournal() {
+        return blockChangeJournal;
+    }
+    
     /**
      * Gets the MapChangeListener to register and unregister callbacks.
      * 
@@ -141,32 +223,154 @@ public final class MapMorph extends JavaPlugin {
     }
     
     /**
-     * Loads all spawn locations for a given map from config.
+     * Gets the pipeline that performs map swaps.
+     * 
+     * @return The swap pipeline
      */
-    public List<Location> getSpawnLocationsForMap(String mapName) {
-        List<Location> spawns = new ArrayList<>();
-        ConfigurationSection section = getConfig().getConfigurationSection("maps." + mapName + ".spawns");
-        if (section != null) {
-            for (String key : section.getKeys(false)) {
-                String path = "maps." + mapName + ".spawns." + key;
-                String world = getConfig().getString(path + ".world");
-                double x = getConfig().getDouble(path + ".x");
-                double y = getConfig().getDouble(path + ".y");
-                double z = getConfig().getDouble(path + ".z");
-                float yaw = (float) getConfig().getDouble(path + ".yaw");
-                float pitch = (float) getConfig().getDouble(path + ".pitch");
-                Location loc = new Location(Bukkit.getWorld(world), x, y, z, yaw, pitch);
-                spawns.add(loc);
-            }
+    public MapSwapPipeline getSwapPipeline() {
+        return swapPipeline;
+    }
+    
+    /**
+     * Gets the compiled map definitions.
+     * 
+     * @return The map registry
+     */
+    public MapRegistry getMapRegistry() {
+        return mapRegistry;
+    }
+    
+    /**
+     * Gets the timing histograms of heavy operations.
+     * 
+     * @return The metrics registry
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+    
+    /**
+     * Gets the Prometheus metrics endpoint.
+     * 
+     * @return The exporter
+     */
+    public PrometheusExporter getPrometheusExporter() {
+        return prometheusExporter;
+    }
+    
+    /**
+     * Gets the monitor that scales per-tick work to server load.
+     * 
+     * @return The tick health monitor
+     */
+    public TickHealthMonitor getTickHealthMonitor() {
+        return tickHealthMonitor;
+    }
+    
+    /**
+     * Gets the in-memory index of schematic headers.
+     * 
+     * @return The schematic index
+     */
+    public SchematicIndex getSchematicIndex() {
+        return schematicIndex;
+    }
+    
+    /**
+     * Gets the watcher that applies schematic file changes.
+     * 
+     * @return The schematic watcher
+     */
+    public SchematicWatcher getSchematicWatcher() {
+        return schematicWatcher;
+    }
+    
+    /**
+     * Reloads config.yml, recompiles the map definitions, rescans the schematics
+     * and applies the watcher, Prometheus endpoint and tick health settings.
+     */
+    @Override
+    public void reloadConfig() {
+        super.reloadConfig();
+        // Also called by getConfig() before the registry exists
+        if (mapRegistry != null) {
+            mapRegistry.reload();
+        }
+        if (schematicIndex != null) {
+            schematicIndex.rebuildAsync();
+        }
+        if (schematicWatcher != null) {
+            schematicWatcher.applyConfig();
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.applyConfig();
+        }
+        if (tickHealthMonitor != null) {
+            tickHealthMonitor.reload();
+        }
+    }
+    
+    /**
+     * Saves config.yml and recompiles the map definitions, so maps edited
+     * through commands take effect right away.
+     */
+    @Override
+    public void saveConfig() {
+        super.saveConfig();
+        if (mapRegistry != null) {
+            mapRegistry.reload();
         }
-        return spawns;
     }
     
     /**
-     * Loads all WorldGuard region IDs for a given map from config.
+     * Gets the map rotation manager.
+     * 
+     * @return The rotation manager
+     */
+    public MapRotationManager getRotationManager() {
+        return rotationManager;
+    }
+    
+    /**
+     * Resolves the schematic file for a map. Uses {@code maps.<map>.schematic}
+     * if set, otherwise {@code <map>.schem} in the maps folder.
+     * 
+     * @param mapName The map name
+     * @return The schematic file (which may not exist)
+     */
+    public File getSchematicFileForMap(String mapName) {
+        MapDefinition definition = mapRegistry.get(mapName);
+        return definition != null ? definition.getSchematicFile() : new File(mapsFolder, mapName + ".schem");
+    }
+    
+    /**
+     * Gets the location a map's schematic is pasted at, from {@code maps.<map>.world}
+     * and {@code maps.<map>.origin}.
+     * 
+     * @param mapName The map name
+     * @return The paste origin, or null if the map's world isn't loaded
+     */
+    public Location getPasteOriginForMap(String mapName) {
+        MapDefinition definition = mapRegistry.get(mapName);
+        return definition != null ? definition.getOrigin() : null;
+    }
+    
+    /**
+     * Gets the spawn locations of a map whose worlds are loaded.
+     * The list and locations are copies.
+     */
+    public List<Location> getSpawnLocationsForMap(String mapName) {
+        MapDefinition definition = mapRegistry.get(mapName);
+        return definition != null ? definition.getSpawns() : Collections.emptyList();
+    }
+    
+    /**
+     * Gets the WorldGuard region IDs of a map.
+     * The list is shared and can't be modified.
      */
     public List<String> getRegionIdsForMap(String mapName) {
-        return getConfig().getStringList("maps." + mapName + ".regions");
+        MapDefinition definition = mapRegistry.get(mapName);
+        return definition != null ? definition.getRegionIds() : Collections.emptyList();
     }
     
     /**
@@ -174,9 +378,7 @@ public final class MapMorph extends JavaPlugin {
      * @return A list of all map names
      */
     public List<String> listAllMaps() {
-        ConfigurationSection mapsSection = getConfig().getConfigurationSection("maps");
-        if (mapsSection == null) return new ArrayList<>();
-        return new ArrayList<>(mapsSection.getKeys(false));
+        return mapRegistry.getMapNames();
     }
     
     /**
@@ -256,10 +458,15 @@ public final class MapMorph extends JavaPlugin {
     
     // Additional helper method to check if a map exists
     public boolean mapExists(String mapName) {
-        return getConfig().contains("maps." + mapName);
+        return mapRegistry.contains(mapName);
     }
 
+    /**
+     * Gets the manager for per-map player stats.
+     * 
+     * @return The player data manager
+     */
     public MapPlayerData getPlayerDataManager() {
-        return null;
+        return playerDataManager;
     }
 }
@@ -1,13 +1,19 @@
 package net.mythofy.mapMorph;
 
+import net.mythofy.mapMorph.metrics.Histogram;
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
+import net.mythofy.mapMorph.metrics.PrometheusExporter;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -82,6 +88,14 @@ public class MapMorphCommand implements CommandExecutor {
                 if (!checkPermission(sender, "mapmorph.admin.rollback")) return true;
                 rollbackMap(sender);
                 break;
+            case "reset":
+                if (!checkPermission(sender, "mapmorph.admin.reset")) return true;
+                resetMap(sender, args);
+                break;
+            case "perf":
+                if (!checkPermission(sender, "mapmorph.admin.perf")) return true;
+                displayPerf(sender, args);
+                break;
             case "version":
                 displayVersion(sender);
                 break;
@@ -154,11 +168,21 @@ public class MapMorphCommand implements CommandExecutor {
                                ChatColor.GRAY + "- Rollback to the previous map");
         }
         
+        if (sender.hasPermission("mapmorph.admin.reset")) {
+            sender.sendMessage(ChatColor.AQUA + "/mapmorph reset <map> " + 
+                               ChatColor.GRAY + "- Restore a map to its schematic");
+        }
+        
         if (sender.hasPermission("mapmorph.admin.reload")) {
             sender.sendMessage(ChatColor.AQUA + "/mapmorph reload " + 
                                ChatColor.GRAY + "- Reload the plugin configuration");
         }
         
+        if (sender.hasPermission("mapmorph.admin.perf")) {
+            sender.sendMessage(ChatColor.AQUA + "/mapmorph perf [reset] " + 
+                               ChatColor.GRAY + "- Show (or clear) swap and paste timings");
+        }
+        
         sender.sendMessage(ChatColor.AQUA + "/mapmorph version " + 
                            ChatColor.GRAY + "- Display plugin version information");
     }
@@ -171,8 +195,21 @@ public class MapMorphCommand implements CommandExecutor {
             return;
         }
         
+        // Maps with a configured schematic that isn't in the index are shown in red
+        SchematicIndex index = plugin.getSchematicIndex();
+        CompositeMapLoader mapLoader = new CompositeMapLoader(plugin);
+        List<String> shown = new ArrayList<>();
+        for (String map : maps) {
+            boolean missing = false;
+            if (index.isReady()) {
+                for (File file : mapLoader.getConfiguredFiles(map)) {
+                    missing |= index.get(file) == null;
+                }
+            }
+            shown.add((missing ? ChatColor.RED : ChatColor.AQUA) + map);
+        }
         sender.sendMessage(prefix + ChatColor.WHITE + "Available maps: " + 
-                          ChatColor.AQUA + String.join(ChatColor.GRAY + ", " + ChatColor.AQUA, maps));
+                          String.join(ChatColor.GRAY + ", ", shown));
         
         String currentMap = plugin.getCurrentMap();
         if (currentMap != null) {
@@ -332,6 +369,27 @@ public class MapMorphCommand implements CommandExecutor {
         }
         sender.sendMessage(ChatColor.GRAY + "Spawn points: " + ChatColor.WHITE + spawnCount);
         
+        // Show schematic headers from the index
+        SchematicIndex index = plugin.getSchematicIndex();
+        List<File> schematicFiles = new CompositeMapLoader(plugin).getConfiguredFiles(mapName);
+        if (schematicFiles.isEmpty()) {
+            // Only the default <map>.schem, which a map may do without
+            File defaultFile = plugin.getSchematicFileForMap(mapName);
+            if (index.get(defaultFile) != null) {
+                displaySchematicInfo(sender, defaultFile, index.get(defaultFile));
+            } else if (index.isReady()) {
+                sender.sendMessage(ChatColor.GRAY + "Schematic: " + ChatColor.WHITE + "none");
+            }
+        }
+        for (File schematicFile : schematicFiles) {
+            SchematicIndex.Entry schematic = index.get(schematicFile);
+            if (schematic != null) {
+                displaySchematicInfo(sender, schematicFile, schematic);
+            } else if (index.isReady()) {
+                sender.sendMessage(ChatColor.GRAY + "Schematic: " + ChatColor.RED + schematicFile.getName() + " (missing)");
+            }
+        }
+        
         // Show regions if any
         List<String> regions = plugin.getRegionIdsForMap(mapName);
         if (!regions.isEmpty()) {
@@ -340,6 +398,19 @@ public class MapMorphCommand implements CommandExecutor {
         }
     }
 
+    private void displaySchematicInfo(CommandSender sender, File schematicFile, SchematicIndex.Entry schematic) {
+        sender.sendMessage(ChatColor.GRAY + "Schematic: " + ChatColor.WHITE + schematicFile.getName() + 
+                          ChatColor.GRAY + " (" + schematic.getWidth() + "x" + schematic.getHeight() + "x" + 
+                          schematic.getLength() + ", " + schematic.getBlockCount() + " blocks)");
+        if (schematic.getPaletteSize() >= 0) {
+            sender.sendMessage(ChatColor.GRAY + "  Palette: " + ChatColor.WHITE + schematic.getPaletteSize() + 
+                              " block states");
+        }
+        if (schematic.getDataVersion() >= 0) {
+            sender.sendMessage(ChatColor.GRAY + "  Data version: " + ChatColor.WHITE + schematic.getDataVersion());
+        }
+    }
+
     private void setSpawnPoint(CommandSender sender, String[] args) {
         if (!(sender instanceof Player)) {
             sender.sendMessage(prefix + ChatColor.RED + "This command can only be used by players!");
@@ -513,16 +584,33 @@ public class MapMorphCommand implements CommandExecutor {
                 break;
         }
         
-        plugin.recordMapSwap(newMap);
-        
-        // In a full implementation, you would teleport all players, reset regions, etc.
-        sender.sendMessage(prefix + ChatColor.GREEN + "Rotated to map '" + newMap + "'.");
-        
-        // Broadcast to all players if enabled in config
-        if (plugin.getConfig().getBoolean("rotation.broadcast", true)) {
-            Bukkit.broadcastMessage(prefix + ChatColor.GREEN + "Map changed to: " + 
-                                   ChatColor.AQUA + newMap);
+        if (plugin.getSwapPipeline().isSwapping()) {
+            sender.sendMessage(prefix + ChatColor.RED + "A map swap is already in progress!");
+            return;
         }
+        
+        String targetMap = newMap;
+        int countdown = plugin.getConfig().getInt("schematics.default-countdown", 5);
+        sender.sendMessage(prefix + ChatColor.GRAY + "Rotating to map '" + targetMap + "'...");
+        plugin.getSwapPipeline().swap(targetMap, countdown).thenAccept(result -> {
+            if (result.isCancelled()) {
+                sender.sendMessage(prefix + ChatColor.RED + "Rotation to map '" + targetMap + "' was cancelled.");
+                return;
+            }
+            if (!result.isSuccess()) {
+                sender.sendMessage(prefix + ChatColor.RED + "Failed to rotate to map '" + targetMap + "' ("
+                                  + result.getFailureReason() + "). Check the console.");
+                return;
+            }
+            sender.sendMessage(prefix + ChatColor.GREEN + "Rotated to map '" + targetMap + "' in "
+                              + result.getTotalMillis() + "ms.");
+            
+            // Broadcast to all players if enabled in config
+            if (plugin.getConfig().getBoolean("rotation.broadcast", true)) {
+                Bukkit.broadcastMessage(prefix + ChatColor.GREEN + "Map changed to: " + 
+                                       ChatColor.AQUA + targetMap);
+            }
+        });
     }
 
     private void rollbackMap(CommandSender sender) {
@@ -543,6 +631,68 @@ public class MapMorphCommand implements CommandExecutor {
         }
     }
 
+    private void resetMap(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(prefix + ChatColor.RED + "Usage: /mapmorph reset <map>");
+            return;
+        }
+        
+        String mapName = args[1];
+        if (!plugin.mapExists(mapName)) {
+            sender.sendMessage(prefix + ChatColor.RED + "Map '" + mapName + "' does not exist!");
+            return;
+        }
+        
+        File schematic = plugin.getSchematicFileForMap(mapName);
+        Location origin = plugin.getPasteOriginForMap(mapName);
+        if (!schematic.exists() || origin == null) {
+            sender.sendMessage(prefix + ChatColor.RED + "Map '" + mapName + "' has no schematic or its world isn't loaded.");
+            return;
+        }
+        
+        sender.sendMessage(prefix + ChatColor.GRAY + "Resetting map '" + mapName + "'...");
+        FaweSchematicPaster.resetSchematic(plugin, schematic, origin.getWorld().getName(), origin, result -> {
+            if (result.isSuccess()) {
+                sender.sendMessage(prefix + ChatColor.GREEN + "Map '" + mapName + "' reset (" + 
+                                  result.getBlocksPlaced() + " blocks in " + result.getElapsedMillis() + "ms).");
+            } else {
+                sender.sendMessage(prefix + ChatColor.RED + "Failed to reset map '" + mapName + "'. Check the console.");
+            }
+        });
+    }
+
+    private void displayPerf(CommandSender sender, String[] args) {
+        MetricsRegistry metrics = plugin.getMetricsRegistry();
+        if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage(prefix + ChatColor.GREEN + "Performance metrics cleared.");
+            return;
+        }
+        
+        sender.sendMessage(ChatColor.AQUA + "MapMorph " + ChatColor.GRAY + "- " + 
+                           ChatColor.WHITE + "Performance:");
+        for (Histogram histogram : metrics.getHistograms()) {
+            if (histogram.getCount() == 0) {
+                sender.sendMessage(ChatColor.GRAY + histogram.getName() + ": " + ChatColor.DARK_GRAY + "no samples");
+                continue;
+            }
+            String unit = " " + histogram.getUnit();
+            sender.sendMessage(ChatColor.GRAY + histogram.getName() + ": " + ChatColor.WHITE + histogram.getCount() + " samples"
+                    + ChatColor.GRAY + ", p50 " + ChatColor.WHITE + histogram.getValueAtPercentile(50) + unit
+                    + ChatColor.GRAY + ", p99 " + ChatColor.WHITE + histogram.getValueAtPercentile(99) + unit
+                    + ChatColor.GRAY + ", max " + ChatColor.WHITE + histogram.getMax() + unit);
+        }
+        
+        TickHealthMonitor health = plugin.getTickHealthMonitor();
+        sender.sendMessage(ChatColor.GRAY + "MSPT: " + ChatColor.WHITE + String.format("%.1f", health.getMspt())
+                + ChatColor.GRAY + ", budget scale: " + ChatColor.WHITE + String.format("%.2f", health.getBudgetScale())
+                + (health.isOverloaded() ? ChatColor.RED + " (rotations deferred)" : ""));
+        
+        PrometheusExporter exporter = plugin.getPrometheusExporter();
+        sender.sendMessage(ChatColor.GRAY + "Prometheus endpoint: " + 
+                           (exporter.isRunning() ? ChatColor.GREEN + "running" : ChatColor.RED + "off"));
+    }
+
     private void displayVersion(CommandSender sender) {
         sender.sendMessage(ChatColor.AQUA + "MapMorph " + ChatColor.WHITE + 
                            plugin.getDescription().getVersion());
@@ -1,16 +1,16 @@
 package net.mythofy.mapMorph;
 
+import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
  * PlaceholderAPI expansion for MapMorph plugin.
- * This is a lightweight implementation that doesn't directly depend on
- * PlaceholderAPI, making it possible to compile without the dependency.
+ * Only loaded when PlaceholderAPI is enabled, so servers without it never
+ * touch this class.
  */
-public class MapMorphExpansion {
+public class MapMorphExpansion extends PlaceholderExpansion {
 
     private final MapMorph plugin;
 
@@ -23,33 +23,12 @@ public class MapMorphExpansion {
         this.plugin = plugin;
     }
 
-    /**
-     * Registers this expansion if PlaceholderAPI is installed.
-     * 
-     * @return true if registration was successful
-     */
-    public boolean register() {
-        Plugin papiPlugin = plugin.getServer().getPluginManager().getPlugin("PlaceholderAPI");
-        if (papiPlugin == null) {
-            return false;
-        }
-        
-        try {
-            // The actual registration would use PlaceholderAPI directly, but we're using reflection
-            // to avoid a hard dependency at compile time
-            plugin.getLogger().info("Registered MapMorph PlaceholderAPI expansion!");
-            return true;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to register PlaceholderAPI expansion: " + e.getMessage());
-            return false;
-        }
-    }
-
     /**
      * The placeholder identifier for this expansion.
      * 
      * @return The identifier in {@code %<identifier>_<value>%} as String
      */
+    @Override
     @NotNull
     public String getIdentifier() {
         return "mapmorph";
@@ -60,6 +39,7 @@ public class MapMorphExpansion {
      * 
      * @return The name of the author as String
      */
+    @Override
     @NotNull
     public String getAuthor() {
         return plugin.getDescription().getAuthors().isEmpty() 
@@ -72,6 +52,7 @@ public class MapMorphExpansion {
      * 
      * @return The version as String
      */
+    @Override
     @NotNull
     public String getVersion() {
         return plugin.getDescription().getVersion();
@@ -82,6 +63,7 @@ public class MapMorphExpansion {
      * 
      * @return true to persist through reloads
      */
+    @Override
     public boolean persist() {
         return true;
     }
@@ -91,6 +73,7 @@ public class MapMorphExpansion {
      * 
      * @return true if this expansion can register
      */
+    @Override
     public boolean canRegister() {
         return true;
     }
@@ -104,8 +87,9 @@ public class MapMorphExpansion {
      * @param identifier The identifier after the placeholder name
      * @return Possibly-null String of the requested identifier
      */
+    @Override
     @Nullable
-    public String onPlaceholderRequest(OfflinePlayer player, @NotNull String identifier) {
+    public String onRequest(OfflinePlayer player, @NotNull String identifier) {
         if (player == null) {
             return "";
         }
@@ -147,6 +131,16 @@ public class MapMorphExpansion {
             return "N/A";
         }
 
+        // %mapmorph_perf_<metric>_<stat>%, e.g. %mapmorph_perf_paste_time_ms_p99%
+        if (identifier.toLowerCase().startsWith("perf_")) {
+            int split = identifier.lastIndexOf('_');
+            if (split <= "perf_".length()) {
+                return null;
+            }
+            return plugin.getMetricsRegistry().getStat(identifier.substring("perf_".length(), split).toLowerCase(),
+                    identifier.substring(split + 1));
+        }
+
         // We return null if an invalid placeholder was provided
         return null;
     }
@@ -29,7 +29,7 @@ public class MapMorphTabCompleter implements TabCompleter {
             "version", "stats", "rotate", "backup", "restore",
             "setpaste", "clearpaste", "setspawn", "listspawns",
             "addschematic", "removeschematic", "listregions", "tutorial",
-            "reset", "resetregion", "defaults"  // Added defaults command
+            "reset", "resetregion", "defaults", "perf"
     );
     
     // Commands that accept a map name as the second argument
@@ -76,6 +76,10 @@ public class MapMorphTabCompleter implements TabCompleter {
                 return filterCompletions(options, args[1]);
             }
             
+            if ("perf".equals(firstArg)) {
+                return filterCompletions(Arrays.asList("reset"), args[1]);
+            }
+            
             if ("defaults".equals(firstArg)) {
                 return filterCompletions(Arrays.asList("show", "set", "apply", "reset"), args[1]);
             }
@@ -263,8 +267,7 @@ public class MapMorphTabCompleter implements TabCompleter {
      * @return List of schematic names
      */
     private List<String> getAvailableSchematics() {
-        // Example implementation
-        return Arrays.asList("example_arena", "spawn_area", "pvp_pit", "castle");
+        return plugin.getSchematicIndex().getSchematicNames();
     }
     
     /**
@@ -0,0 +1,113 @@
+package net.mythofy.mapMorph;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the compiled {@link MapDefinition} of every configured map.
+ * <p>
+ * All definitions are compiled together and published with a single volatile
+ * write, so readers never lock and always see one consistent set. The registry
+ * recompiles on {@link #reload()} (config changes and {@code /mapmorph reload})
+ * and when worlds load or unload, since spawn locations hold world references.
+ */
+public class MapRegistry implements Listener {
+
+    private final MapMorph plugin;
+    private volatile Map<String, MapDefinition> definitions = Collections.emptyMap();
+
+    /**
+     * Creates the registry and compiles the current config.
+     *
+     * @param plugin The plugin instance
+     */
+    public MapRegistry(MapMorph plugin) {
+        this.plugin = plugin;
+        reload();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Recompiles every map from {@code maps} in the config.
+     */
+    public synchronized void reload() {
+        Map<String, MapDefinition> compiled = new LinkedHashMap<>();
+        ConfigurationSection maps = plugin.getConfig().getConfigurationSection("maps");
+        if (maps != null) {
+            for (String mapName : maps.getKeys(false)) {
+                ConfigurationSection section = maps.getConfigurationSection(mapName);
+                if (section == null) {
+                    continue;
+                }
+                try {
+                    compiled.put(mapName, MapDefinition.compile(mapName, section, plugin.getMapsFolder()));
+                } catch (Exception e) {
+                    plugin.getLogger().severe("Failed to load map " + mapName + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+        definitions = Collections.unmodifiableMap(compiled);
+    }
+
+    /**
+     * Gets a map's definition.
+     *
+     * @param mapName The map name
+     * @return The definition, or null if the map isn't configured
+     */
+    public MapDefinition get(String mapName) {
+        return mapName != null ? definitions.get(mapName) : null;
+    }
+
+    /**
+     * Checks whether a map is configured.
+     *
+     * @param mapName The map name
+     * @return true if the map has a definition
+     */
+    public boolean contains(String mapName) {
+        return get(mapName) != null;
+    }
+
+    /**
+     * Gets the names of all configured maps.
+     *
+     * @return The map names in config order
+     */
+    public List<String> getMapNames() {
+        return new ArrayList<>(definitions.keySet());
+    }
+
+    /**
+     * Gets all map definitions.
+     *
+     * @return The definitions in config order
+     */
+    public Collection<MapDefinition> getAll() {
+        return definitions.values();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        reload();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        // The world is still loaded while the event runs
+        Bukkit.getScheduler().runTask(plugin, this::reload);
+    }
+}
@@ -1,6 +1,7 @@
 package net.mythofy.mapMorph;
 
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -21,6 +22,9 @@ public class MapRotationManager {
     private int intervalMinutes;
     private final AtomicInteger currentIndex = new AtomicInteger(0);
     private BukkitTask rotationTask;
+    private BukkitTask preloadTask;
+    private BukkitTask deferredRotation;
+    private String plannedNextMap;
     private final Random random = new Random();
     
     /**
@@ -34,10 +38,12 @@ public class MapRotationManager {
     }
     
     /**
-     * Reloads the rotation settings from config.
+     * Reloads the rotation settings from config. Automatic rotation only runs
+     * when {@code rotation.enabled} is set.
      */
     public void reloadConfig() {
         FileConfiguration config = plugin.getConfig();
+        boolean enabled = config.getBoolean("rotation.enabled", false);
         this.rotationMaps = config.getStringList("rotation.maps");
         this.intervalMinutes = config.getInt("rotation.interval_minutes", 30);
         
@@ -52,9 +58,12 @@ public class MapRotationManager {
             rotationTask.cancel();
             rotationTask = null;
         }
+        cancelPreload();
+        cancelDeferredRotation();
+        plannedNextMap = null;
         
-        // Start rotation task if interval is configured
-        if (intervalMinutes > 0) {
+        // Start rotation task if enabled and an interval is configured
+        if (enabled && intervalMinutes > 0) {
             setupRotationTask();
         }
     }
@@ -65,13 +74,80 @@ public class MapRotationManager {
     private void setupRotationTask() {
         long tickInterval = intervalMinutes * 60L * 20L; // Convert minutes to ticks
         rotationTask = Bukkit.getScheduler().runTaskTimer(plugin, this::rotateMap, tickInterval, tickInterval);
+        schedulePreload();
         plugin.getLogger().info("Map rotation scheduled every " + intervalMinutes + " minutes");
     }
     
+    /**
+     * Schedules the upcoming map to be chosen and its schematic parsed
+     * {@code rotation.announce-time} seconds before the next rotation.
+     */
+    private void schedulePreload() {
+        cancelPreload();
+        long tickInterval = intervalMinutes * 60L * 20L;
+        long leadTicks = Math.max(0, plugin.getConfig().getInt("rotation.announce-time", 60)) * 20L;
+        // Always leave the preload at least half the interval to run
+        leadTicks = Math.min(leadTicks, tickInterval / 2);
+        preloadTask = Bukkit.getScheduler().runTaskLater(plugin, this::prepareNextMap, tickInterval - leadTicks);
+    }
+    
+    private void cancelPreload() {
+        if (preloadTask != null) {
+            preloadTask.cancel();
+            preloadTask = null;
+        }
+    }
+    
+    /**
+     * Picks the map for the next rotation ahead of time and starts parsing its
+     * schematic off the main thread, so the swap itself only has to paste.
+     */
+    private void prepareNextMap() {
+        preloadTask = null;
+        if (plannedNextMap == null) {
+            plannedNextMap = getNextMap();
+        }
+        if (plannedNextMap == null) {
+            return;
+        }
+        
+        if (plugin instanceof MapMorph) {
+            MapMorph mapMorph = (MapMorph) plugin;
+            if (mapMorph.getClipboardCache() != null) {
+                for (CompositeMapLoader.MapPiece piece : new CompositeMapLoader(mapMorph).getPieces(plannedNextMap)) {
+                    mapMorph.getClipboardCache().preload(piece.getFile());
+                }
+            }
+        }
+        
+        if (plugin.getConfig().getBoolean("rotation.announce-upcoming", true)) {
+            long seconds = Math.min(plugin.getConfig().getInt("rotation.announce-time", 60), intervalMinutes * 60L / 2);
+            String format = plugin.getConfig().getString("rotation.announce-format",
+                    "&eMap changing to &b{map}&e in &c{time}&e seconds!");
+            Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', format
+                    .replace("{map}", plannedNextMap)
+                    .replace("{time}", String.valueOf(seconds))));
+        }
+    }
+    
+    /**
+     * Gets the map chosen for the next rotation, if it has been picked already.
+     *
+     * @return The upcoming map, or null if not yet chosen
+     */
+    public String getPlannedNextMap() {
+        return plannedNextMap;
+    }
+    
     /**
      * Performs the map rotation.
      */
     private void rotateMap() {
+        // Line up the preload for the following rotation
+        if (rotationTask != null) {
+            schedulePreload();
+        }
+        
         // Check if we should rotate when server is empty
         boolean rotateWhenEmpty = plugin.getConfig().getBoolean("rotation.rotate-when-empty", false);
         int minPlayers = plugin.getConfig().getInt("rotation.min-players", 1);
@@ -81,17 +157,72 @@ public class MapRotationManager {
             return;
         }
         
-        String nextMap = getNextMap();
+        // Use the map picked (and preloaded) ahead of time if there is one
+        String nextMap = plannedNextMap != null ? plannedNextMap : getNextMap();
+        plannedNextMap = null;
         if (nextMap == null) {
             plugin.getLogger().warning("Failed to get next map for rotation");
             return;
         }
         
-        // Here you would implement the actual map change logic
-        plugin.getLogger().info("Rotating to map: " + nextMap);
+        rotateWhenHealthy(nextMap, 0);
+    }
+    
+    /**
+     * Swaps to a map once ticks are fast enough. While the {@link TickHealthMonitor}
+     * reports the server as overloaded the swap is retried every few seconds, for at
+     * most {@code performance.max-rotation-defer-seconds} (and half the rotation interval).
+     *
+     * @param mapName       The map to swap to
+     * @param deferredSince When the rotation was first deferred, or 0 if it hasn't been
+     */
+    private void rotateWhenHealthy(String mapName, long deferredSince) {
+        deferredRotation = null;
+        TickHealthMonitor health = plugin instanceof MapMorph ? ((MapMorph) plugin).getTickHealthMonitor() : null;
+        if (health != null && health.isOverloaded()) {
+            long now = System.currentTimeMillis();
+            long maxDeferMillis = Math.min(plugin.getConfig().getLong("performance.max-rotation-defer-seconds", 300) * 1000L,
+                    intervalMinutes * 60_000L / 2);
+            if (deferredSince == 0) {
+                plugin.getLogger().info(String.format("Deferring rotation to %s while the server is lagging (%.1f MSPT)",
+                        mapName, health.getMspt()));
+                deferredSince = now;
+            }
+            if (now - deferredSince < maxDeferMillis) {
+                long since = deferredSince;
+                deferredRotation = Bukkit.getScheduler().runTaskLater(plugin, () -> rotateWhenHealthy(mapName, since), 100L);
+                return;
+            }
+            plugin.getLogger().warning("Server is still lagging; rotating to " + mapName + " anyway");
+        }
         
-        // Example of how this might work with a map swap command:
-        // Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "mapmorph load " + nextMap);
+        plugin.getLogger().info("Rotating to map: " + mapName);
+        swapTo(mapName);
+    }
+    
+    private void cancelDeferredRotation() {
+        if (deferredRotation != null) {
+            deferredRotation.cancel();
+            deferredRotation = null;
+        }
+    }
+    
+    /**
+     * Swaps to a map through the swap pipeline, which pastes its schematic
+     * (from the clipboard cache when preloaded) and records the swap once done.
+     *
+     * @param mapName The map to swap to
+     */
+    private void swapTo(String mapName) {
+        if (!(plugin instanceof MapMorph)) {
+            return;
+        }
+        int countdown = plugin.getConfig().getInt("schematics.default-countdown", 5);
+        ((MapMorph) plugin).getSwapPipeline().swap(mapName, countdown).thenAccept(result -> {
+            if (!result.isSuccess() && !result.isCancelled()) {
+                plugin.getLogger().warning("Rotation to map " + mapName + " failed during " + result.getFailedStage());
+            }
+        });
     }
     
     /**
@@ -196,6 +327,8 @@ public class MapRotationManager {
      * Stops the rotation task.
      */
     public void stopRotation() {
+        cancelPreload();
+        cancelDeferredRotation();
         if (rotationTask != null) {
             rotationTask.cancel();
             rotationTask = null;
@@ -0,0 +1,384 @@
+package net.mythofy.mapMorph;
+
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a map swap as a sequence of explicit stages:
+ * <ol>
+ *   <li>{@link Stage#PRE_SWAP_EVENT} - fires {@link MapMorphPreSwapEvent}, which may cancel the swap</li>
+ *   <li>{@link Stage#PARSE} and {@link Stage#COUNTDOWN} - the schematics are parsed off the main
+ *       thread while players in the map's world count down</li>
+ *   <li>{@link Stage#PREWARM} - once parsed, the chunks of the paste region are loaded by the
+ *       {@link ChunkPrewarmer}, still during the countdown, and kept loaded until the paste ends</li>
+ *   <li>{@link Stage#EVACUATE} - players inside the paste region are faded out and moved to safety</li>
+ *   <li>{@link Stage#CLEAR_ENTITIES} - configured entities are removed from the region</li>
+ *   <li>{@link Stage#PASTE} - the schematic is pasted through the {@link PasteEngine}</li>
+ *   <li>{@link Stage#REGION_ACTIVATION} - the map's WorldGuard regions are activated</li>
+ *   <li>{@link Stage#TEAM_SPAWN} - players are split into the map's teams and sent to their spawns</li>
+ *   <li>{@link Stage#POST_SWAP_EVENT} - the swap is recorded and {@link MapMorphPostSwapEvent} fires</li>
+ * </ol>
+ * Maps made of several schematics are parsed and pasted through the {@link CompositeMapLoader}.
+ * Maps without a schematic skip straight from the pre-swap event to region activation.
+ * Every stage's wall time ends up in the {@link MapSwapResult}. Only one swap runs at a time.
+ */
+public class MapSwapPipeline {
+
+    /**
+     * The stages of a swap, in pipeline order.
+     */
+    public enum Stage {
+        PRE_SWAP_EVENT,
+        PARSE,
+        PREWARM,
+        COUNTDOWN,
+        EVACUATE,
+        CLEAR_ENTITIES,
+        PASTE,
+        REGION_ACTIVATION,
+        TEAM_SPAWN,
+        POST_SWAP_EVENT
+    }
+
+    private final MapMorph plugin;
+    private final TeamSpawnManager teamSpawnManager;
+    private final CompositeMapLoader mapLoader;
+    private final Executor mainThread;
+    private volatile Swap running;
+
+    /**
+     * Creates a swap pipeline.
+     *
+     * @param plugin The plugin instance
+     */
+    public MapSwapPipeline(MapMorph plugin) {
+        this.plugin = plugin;
+        this.teamSpawnManager = new TeamSpawnManager(plugin);
+        this.mapLoader = new CompositeMapLoader(plugin);
+        this.mainThread = task -> {
+            if (Bukkit.isPrimaryThread()) {
+                task.run();
+            } else {
+                Bukkit.getScheduler().runTask(plugin, task);
+            }
+        };
+    }
+
+    /**
+     * Swaps to a map. Can be called from any thread; the stages that touch
+     * the world run on the main thread.
+     *
+     * @param mapName   The map to swap to
+     * @param countdown Seconds to count down before players are moved and the map is pasted
+     * @return A future completed on the main thread with the outcome and stage timings.
+     *         It never completes exceptionally; failures are reported in the result.
+     */
+    public CompletableFuture<MapSwapResult> swap(String mapName, int countdown) {
+        CompletableFuture<MapSwapResult> future = new CompletableFuture<>();
+        mainThread.execute(() -> {
+            Swap swap = new Swap(mapName, plugin.getCurrentMap(), future);
+            if (running != null) {
+                swap.fail(Stage.PRE_SWAP_EVENT, "A swap to " + running.mapName + " is already in progress");
+                return;
+            }
+            if (!plugin.mapExists(mapName)) {
+                swap.fail(Stage.PRE_SWAP_EVENT, "Map " + mapName + " does not exist");
+                return;
+            }
+            running = swap;
+            try {
+                start(swap, countdown);
+            } catch (Exception e) {
+                swap.fail(swap.currentStage, e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Whether a swap is in progress.
+     *
+     * @return true between the start of a swap and its result
+     */
+    public boolean isSwapping() {
+        return running != null;
+    }
+
+    private void start(Swap swap, int countdown) {
+        long eventStart = swap.begin(Stage.PRE_SWAP_EVENT);
+        MapMorphPreSwapEvent preSwap = new MapMorphPreSwapEvent(swap.previousMap, swap.mapName);
+        Bukkit.getPluginManager().callEvent(preSwap);
+        swap.end(Stage.PRE_SWAP_EVENT, eventStart);
+        if (preSwap.isCancelled()) {
+            swap.cancel();
+            return;
+        }
+
+        List<CompositeMapLoader.MapPiece> pieces = mapLoader.getPieces(swap.mapName);
+        if (pieces.isEmpty()) {
+            // Nothing to paste for this map, just switch over
+            activate(swap);
+            return;
+        }
+
+        // Parse every piece and count down at the same time; the paste needs both
+        swap.currentStage = Stage.PARSE;
+        long parseStart = System.nanoTime();
+        CompletableFuture<List<PasteEngine.Piece>> parse = mapLoader.parseAll(pieces)
+                .whenComplete((parsed, error) -> swap.end(Stage.PARSE, parseStart));
+        // Load the paste region's chunks as soon as its bounds are known
+        CompletableFuture<List<PasteEngine.Piece>> ready = ChunkPrewarmer.isEnabled(plugin)
+                ? parse.thenCompose(parsed -> prewarm(swap, parsed))
+                : parse;
+
+        long countdownStart = System.nanoTime();
+        List<Player> audience = new ArrayList<>();
+        if (countdown > 0) {
+            Set<World> worlds = new LinkedHashSet<>();
+            for (CompositeMapLoader.MapPiece piece : pieces) {
+                worlds.add(piece.getOrigin().getWorld());
+            }
+            for (World world : worlds) {
+                audience.addAll(world.getPlayers());
+            }
+        }
+        FaweSchematicPaster.startCountdown(plugin, audience, countdown, () -> {
+            swap.end(Stage.COUNTDOWN, countdownStart);
+            // A parse that outlasts the countdown extends it with a "still preparing" notice
+            FaweSchematicPaster.awaitParse(plugin, ready, audience, () -> {
+                List<PasteEngine.Piece> parsed;
+                try {
+                    parsed = ready.join();
+                } catch (CompletionException e) {
+                    swap.fail(Stage.PARSE, e.getCause() != null ? e.getCause() : e);
+                    return;
+                }
+                try {
+                    paste(swap, pieces, parsed);
+                } catch (Exception e) {
+                    swap.fail(swap.currentStage, e);
+                }
+            });
+        });
+    }
+
+    /**
+     * Loads and tickets the chunks of every parsed piece.
+     */
+    private CompletableFuture<List<PasteEngine.Piece>> prewarm(Swap swap, List<PasteEngine.Piece> parsed) {
+        long prewarmStart = System.nanoTime();
+        ChunkPrewarmer prewarmer = new ChunkPrewarmer(plugin);
+        for (PasteEngine.Piece piece : parsed) {
+            prewarmer.addRegion(piece.getWorld(), piece.getMin(), piece.getMax());
+        }
+        swap.prewarmer = prewarmer;
+        return prewarmer.start().thenApply(ignored -> {
+            swap.end(Stage.PREWARM, prewarmStart);
+            return parsed;
+        });
+    }
+
+    private void paste(Swap swap, List<CompositeMapLoader.MapPiece> pieces, List<PasteEngine.Piece> parsed) {
+        long evacuateStart = swap.begin(Stage.EVACUATE);
+        Set<World> worlds = new LinkedHashSet<>();
+        for (PasteEngine.Piece piece : parsed) {
+            worlds.add(piece.getWorld());
+        }
+        List<CompletableFuture<TeleportResult>> evacuations = new ArrayList<>();
+        for (World world : worlds) {
+            List<Player> playersInRegion = world.getPlayers().stream()
+                    .filter(p -> parsed.stream().anyMatch(piece -> piece.getWorld().equals(world)
+                            && AsyncCleanupUtil.isInRegion(p.getLocation(), piece.getMin(), piece.getMax())))
+                    .collect(Collectors.toCollection(ArrayList::new));
+            evacuations.add(FaweSchematicPaster.evacuate(plugin, playersInRegion, world.getSpawnLocation()));
+        }
+        // Nobody may be left in the region when the paste starts
+        CompletableFuture.allOf(evacuations.toArray(new CompletableFuture[0])).whenCompleteAsync((ignored, error) -> {
+            swap.end(Stage.EVACUATE, evacuateStart);
+            if (error != null) {
+                swap.fail(Stage.EVACUATE, error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            try {
+                clearAndPaste(swap, pieces, parsed);
+            } catch (Exception e) {
+                swap.fail(swap.currentStage, e);
+            }
+        }, mainThread);
+    }
+
+    private void clearAndPaste(Swap swap, List<CompositeMapLoader.MapPiece> pieces, List<PasteEngine.Piece> parsed) {
+        long clearStart = swap.begin(Stage.CLEAR_ENTITIES);
+        clearEntities(parsed, 0, () -> {
+            swap.end(Stage.CLEAR_ENTITIES, clearStart);
+
+            long pasteStart = swap.begin(Stage.PASTE);
+            PasteEngine.pasteAll(plugin, parsed, PasteEngine.isDiffMode(plugin), null, result -> {
+                swap.end(Stage.PASTE, pasteStart);
+                swap.pasteResult = result;
+                swap.releaseChunks();
+                if (!result.isSuccess()) {
+                    swap.fail(Stage.PASTE, "Failed to paste the schematics of map " + swap.mapName);
+                    return;
+                }
+                // Start journaling changes against the freshly pasted pieces
+                BlockChangeJournal journal = FaweSchematicPaster.getJournal(plugin);
+                if (journal != null) {
+                    for (int i = 0; i < parsed.size(); i++) {
+                        PasteEngine.Piece piece = parsed.get(i);
+                        journal.track(pieces.get(i).getFile(), piece.getWorld(), piece.getMin(), piece.getMax(), piece.getTo());
+                    }
+                }
+                try {
+                    activate(swap);
+                } catch (Exception e) {
+                    swap.fail(swap.currentStage, e);
+                }
+            });
+        });
+    }
+
+    /**
+     * Clears the configured entities from each piece's region in turn.
+     */
+    private void clearEntities(List<PasteEngine.Piece> parsed, int index, Runnable onDone) {
+        if (index >= parsed.size()) {
+            onDone.run();
+            return;
+        }
+        PasteEngine.Piece piece = parsed.get(index);
+        AsyncCleanupUtil.cleanupRegion(plugin, piece.getWorld(), piece.getMin(), piece.getMax(),
+                FaweSchematicPaster.getClearTypes(plugin), removed -> clearEntities(parsed, index + 1, onDone));
+    }
+
+    private void activate(Swap swap) {
+        long regionStart = swap.begin(Stage.REGION_ACTIVATION);
+        MapDefinition definition = plugin.getMapRegistry().get(swap.mapName);
+        List<String> regionIds = definition != null ? definition.getRegionIds() : Collections.emptyList();
+        if (!regionIds.isEmpty()) {
+            if (!WorldGuardRegionUtils.activateRegionsForMap(definition.getWorldName(), regionIds)) {
+                plugin.getLogger().warning("Could not activate regions for map " + swap.mapName);
+            }
+        }
+        swap.end(Stage.REGION_ACTIVATION, regionStart);
+
+        long teamStart = swap.begin(Stage.TEAM_SPAWN);
+        Set<String> teams = teamSpawnManager.getTeamsForMap(swap.mapName);
+        CompletableFuture<TeleportResult> teamSpawn = CompletableFuture.completedFuture(TeleportResult.empty());
+        if (!teams.isEmpty()) {
+            Map<UUID, String> assignments = teamSpawnManager.autoAssignTeams(Bukkit.getOnlinePlayers(), teams);
+            teamSpawn = teamSpawnManager.teleportTeamsToSpawns(swap.mapName, assignments);
+        }
+        teamSpawn.whenCompleteAsync((ignored, error) -> {
+            swap.end(Stage.TEAM_SPAWN, teamStart);
+            if (error != null) {
+                swap.fail(Stage.TEAM_SPAWN, error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            try {
+                finish(swap);
+            } catch (Exception e) {
+                swap.fail(swap.currentStage, e);
+            }
+        }, mainThread);
+    }
+
+    private void finish(Swap swap) {
+        long eventStart = swap.begin(Stage.POST_SWAP_EVENT);
+        plugin.recordMapSwap(swap.mapName);
+        Bukkit.getPluginManager().callEvent(new MapMorphPostSwapEvent(swap.previousMap, swap.mapName));
+        swap.end(Stage.POST_SWAP_EVENT, eventStart);
+
+        swap.complete();
+    }
+
+    /**
+     * State of one swap. Stage times are written from the parser thread and the
+     * main thread, so they're kept under the swap's lock.
+     */
+    private final class Swap {
+        final String mapName;
+        final String previousMap;
+        final CompletableFuture<MapSwapResult> future;
+        final long startNanos = System.nanoTime();
+        final Map<Stage, Long> stageMillis = new EnumMap<>(Stage.class);
+        volatile Stage currentStage = Stage.PRE_SWAP_EVENT;
+        PasteResult pasteResult;
+        volatile ChunkPrewarmer prewarmer;
+
+        Swap(String mapName, String previousMap, CompletableFuture<MapSwapResult> future) {
+            this.mapName = mapName;
+            this.previousMap = previousMap;
+            this.future = future;
+        }
+
+        long begin(Stage stage) {
+            currentStage = stage;
+            return System.nanoTime();
+        }
+
+        synchronized void end(Stage stage, long startNanos) {
+            stageMillis.put(stage, (System.nanoTime() - startNanos) / 1_000_000L);
+        }
+
+        void complete() {
+            finish(true, false, null, null);
+            plugin.getMetricsRegistry().record(MetricsRegistry.SWAP_TIME, elapsedMillis());
+            if (plugin.getConfig().getBoolean("general.debug", false)) {
+                plugin.getLogger().info("Swapped to map " + mapName + " in " + elapsedMillis() + "ms " + stageMillis);
+            }
+        }
+
+        void cancel() {
+            finish(false, true, null, null);
+        }
+
+        void fail(Stage stage, Throwable error) {
+            plugin.getLogger().severe("Map swap to " + mapName + " failed during " + stage + ": " + error.getMessage());
+            error.printStackTrace();
+            finish(false, false, stage, error.getMessage() != null ? error.getMessage() : error.toString());
+        }
+
+        void fail(Stage stage, String reason) {
+            plugin.getLogger().warning("Map swap to " + mapName + " failed during " + stage + ": " + reason);
+            finish(false, false, stage, reason);
+        }
+
+        void releaseChunks() {
+            ChunkPrewarmer current = prewarmer;
+            if (current != null) {
+                current.release();
+            }
+        }
+
+        private synchronized void finish(boolean success, boolean cancelled, Stage failedStage, String reason) {
+            if (running == this) {
+                running = null;
+            }
+            releaseChunks();
+            ChunkPrewarmer current = prewarmer;
+            future.complete(new MapSwapResult(mapName, previousMap, success, cancelled, failedStage, reason,
+                    stageMillis, elapsedMillis(), pasteResult,
+                    current != null ? current.getWarmChunks() : 0, current != null ? current.getColdChunks() : 0));
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package net.mythofy.mapMorph;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of a map swap run by the {@link MapSwapPipeline}, with the wall time
+ * of every stage that ran.
+ */
+public class MapSwapResult {
+    private final String mapName;
+    private final String previousMap;
+    private final boolean success;
+    private final boolean cancelled;
+    private final MapSwapPipeline.Stage failedStage;
+    private final String failureReason;
+    private final Map<MapSwapPipeline.Stage, Long> stageMillis;
+    private final long totalMillis;
+    private final PasteResult pasteResult;
+    private final int warmChunks;
+    private final int coldChunks;
+
+    MapSwapResult(String mapName, String previousMap, boolean success, boolean cancelled,
+                  MapSwapPipeline.Stage failedStage, String failureReason,
+                  Map<MapSwapPipeline.Stage, Long> stageMillis, long totalMillis, PasteResult pasteResult,
+                  int warmChunks, int coldChunks) {
+        this.mapName = mapName;
+        this.previousMap = previousMap;
+        this.success = success;
+        this.cancelled = cancelled;
+        this.failedStage = failedStage;
+        this.failureReason = failureReason;
+        this.stageMillis = stageMillis.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(stageMillis));
+        this.totalMillis = totalMillis;
+        this.pasteResult = pasteResult;
+        this.warmChunks = warmChunks;
+        this.coldChunks = coldChunks;
+    }
+
+    /**
+     * Gets the map that was swapped to.
+     *
+     * @return The map name
+     */
+    public String getMapName() {
+        return mapName;
+    }
+
+    /**
+     * Gets the map that was active when the swap started.
+     *
+     * @return The previous map, or null if none was set
+     */
+    public String getPreviousMap() {
+        return previousMap;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Whether a {@link MapMorphPreSwapEvent} listener cancelled the swap.
+     *
+     * @return true if the swap was cancelled before anything changed
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the stage the swap failed in.
+     *
+     * @return The failed stage, or null if the swap succeeded or was cancelled
+     */
+    public MapSwapPipeline.Stage getFailedStage() {
+        return failedStage;
+    }
+
+    /**
+     * Gets a short description of why the swap failed.
+     *
+     * @return The reason, or null if the swap succeeded
+     */
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * Gets the wall time of every stage that ran, in pipeline order. Parsing
+     * and the countdown run at the same time, so the stage times can add up
+     * to more than {@link #getTotalMillis()}.
+     *
+     * @return Stage to elapsed milliseconds
+     */
+    public Map<MapSwapPipeline.Stage, Long> getStageMillis() {
+        return stageMillis;
+    }
+
+    /**
+     * Gets the wall time of one stage.
+     *
+     * @param stage The stage
+     * @return The elapsed milliseconds, or -1 if the stage didn't run
+     */
+    public long getStageMillis(MapSwapPipeline.Stage stage) {
+        Long millis = stageMillis.get(stage);
+        return millis != null ? millis : -1;
+    }
+
+    /**
+     * Gets the wall time of the whole swap, from the pre-swap event to the post-swap event.
+     *
+     * @return The elapsed milliseconds
+     */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * Gets the result of the paste stage.
+     *
+     * @return The paste result, or null if the map has no schematic or the swap stopped before pasting
+     */
+    public PasteResult getPasteResult() {
+        return pasteResult;
+    }
+
+    /**
+     * Gets the number of paste region chunks that were already loaded when prewarming started.
+     *
+     * @return The warm chunk count, 0 if the swap didn't prewarm
+     */
+    public int getWarmChunks() {
+        return warmChunks;
+    }
+
+    /**
+     * Gets the number of paste region chunks the prewarm stage had to load or generate.
+     *
+     * @return The cold chunk count, 0 if the swap didn't prewarm
+     */
+    public int getColdChunks() {
+        return coldChunks;
+    }
+}
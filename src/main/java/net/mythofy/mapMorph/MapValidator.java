@@ -1,12 +1,7 @@
 package net.mythofy.mapMorph;
 
-import org.bukkit.Bukkit;
-import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.configuration.ConfigurationSection;
-
 import java.io.File;
-import java.util.List;
+import java.util.Map;
 
 /**
  * Validates map configurations to ensure they have all required elements.
@@ -31,43 +26,7 @@ public class MapValidator {
      * @return true if valid, false otherwise
      */
     public boolean isValid(String mapName) {
-        if (mapName == null || mapName.isEmpty()) {
-            return false;
-        }
-        
-        // Check if map exists in config
-        if (!plugin.getConfig().contains("maps." + mapName)) {
-            return false;
-        }
-        
-        // Check if schematic file exists
-        File schematicFile = new File(plugin.getMapsFolder(), mapName + ".schem");
-        if (!schematicFile.exists() || !schematicFile.isFile()) {
-            return false;
-        }
-        
-        // Check if spawn points are set
-        ConfigurationSection spawnSection = plugin.getConfig().getConfigurationSection("maps." + mapName + ".spawns");
-        if (spawnSection == null) {
-            return false;
-        }
-        
-        List<String> spawnKeys = spawnSection.getKeys(false).stream().toList();
-        if (spawnKeys.isEmpty()) {
-            return false;
-        }
-        
-        // Check that all spawn points reference valid worlds
-        for (String key : spawnKeys) {
-            String worldName = plugin.getConfig().getString("maps." + mapName + ".spawns." + key + ".world");
-            World world = Bukkit.getWorld(worldName);
-            if (world == null) {
-                return false;
-            }
-        }
-        
-        // All checks passed
-        return true;
+        return validate(mapName) == null;
     }
     
     /**
@@ -77,38 +36,45 @@ public class MapValidator {
      * @return A message explaining the validation result
      */
     public String getValidationMessage(String mapName) {
+        String problem = validate(mapName);
+        return problem != null ? problem : "Map is valid";
+    }
+    
+    /**
+     * Validates a map against its compiled definition.
+     * 
+     * @param mapName The name of the map to validate
+     * @return The first problem found, or null if the map is valid
+     */
+    private String validate(String mapName) {
         if (mapName == null || mapName.isEmpty()) {
             return "Map name cannot be empty";
         }
         
         // Check if map exists in config
-        if (!plugin.getConfig().contains("maps." + mapName)) {
+        MapDefinition definition = plugin.getMapRegistry().get(mapName);
+        if (definition == null) {
             return "Map not defined in config";
         }
         
-        // Check if schematic file exists
-        File schematicFile = new File(plugin.getMapsFolder(), mapName + ".schem");
-        if (!schematicFile.exists() || !schematicFile.isFile()) {
+        // Check if schematic file exists (indexed schematics skip the disk check)
+        File schematicFile = definition.getSchematicFile();
+        if (plugin.getSchematicIndex().get(schematicFile) == null && !schematicFile.isFile()) {
             return "Schematic file not found: " + schematicFile.getName();
         }
         
-        // Check if spawn points are set
-        ConfigurationSection spawnSection = plugin.getConfig().getConfigurationSection("maps." + mapName + ".spawns");
-        if (spawnSection == null || spawnSection.getKeys(false).isEmpty()) {
-            return "No spawn points defined";
+        // Check that all spawn points reference valid worlds
+        if (!definition.getUnresolvedSpawns().isEmpty()) {
+            Map.Entry<String, String> unresolved = definition.getUnresolvedSpawns().entrySet().iterator().next();
+            return "Spawn point #" + unresolved.getKey() + " references unknown world: " + unresolved.getValue();
         }
         
-        // Check that all spawn points reference valid worlds
-        List<String> spawnKeys = spawnSection.getKeys(false).stream().toList();
-        for (String key : spawnKeys) {
-            String worldName = plugin.getConfig().getString("maps." + mapName + ".spawns." + key + ".world");
-            World world = Bukkit.getWorld(worldName);
-            if (world == null) {
-                return "Spawn point #" + key + " references unknown world: " + worldName;
-            }
+        // Check if spawn points are set
+        if (definition.getSpawns().isEmpty()) {
+            return "No spawn points defined";
         }
         
         // All checks passed
-        return "Map is valid";
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,708 @@
+package net.mythofy.mapMorph;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Pastes clipboards into the world without freezing the main thread.
+ * <p>
+ * The clipboard is split into 16x16x16 chunk sections which are written a few at a
+ * time, stopping each tick once the configured millisecond budget is used up. The
+ * budget shrinks and grows with server load through the {@link TickHealthMonitor}. When
+ * FAWE is installed and {@code schematics.use-fawe} is enabled the whole paste is
+ * handed to FAWE instead, which queues the work on its own async chunk processor.
+ * <p>
+ * In diff mode each clipboard block is compared with the live world first and only
+ * blocks that differ are written, which makes resets of a mostly intact arena cheap.
+ * Diff pastes always use the chunked task since they need to read the world.
+ */
+public class PasteEngine {
+
+    private static final int SECTION_SIZE = 16;
+    // How many blocks to write between budget checks
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    /**
+     * Pastes a clipboard with its origin placed at {@code to}.
+     *
+     * @param plugin     The plugin instance (for scheduling and config)
+     * @param clipboard  The clipboard to paste
+     * @param world      The world to paste into
+     * @param to         The position the clipboard origin is pasted at
+     * @param ignoreAir  Whether air blocks in the clipboard should be skipped
+     * @param onProgress Callback receiving progress after each tick of work (may be null)
+     * @param onComplete Callback receiving the result, always run on the main thread
+     */
+    public static void paste(Plugin plugin, Clipboard clipboard, World world, BlockVector3 to, boolean ignoreAir,
+                             Consumer<PasteProgress> onProgress, Consumer<PasteResult> onComplete) {
+        paste(plugin, clipboard, world, to, ignoreAir, false, onProgress, onComplete);
+    }
+
+    /**
+     * Pastes a clipboard with its origin placed at {@code to}, optionally writing
+     * only the blocks that differ from the current world.
+     *
+     * @param plugin     The plugin instance (for scheduling and config)
+     * @param clipboard  The clipboard to paste
+     * @param world      The world to paste into
+     * @param to         The position the clipboard origin is pasted at
+     * @param ignoreAir  Whether air blocks in the clipboard should be skipped
+     * @param diff       Whether to skip blocks that already match the world
+     * @param onProgress Callback receiving progress after each tick of work (may be null)
+     * @param onComplete Callback receiving the result, always run on the main thread
+     */
+    public static void paste(Plugin plugin, Clipboard clipboard, World world, BlockVector3 to, boolean ignoreAir, boolean diff,
+                             Consumer<PasteProgress> onProgress, Consumer<PasteResult> onComplete) {
+        onComplete = recording(plugin, onComplete);
+        if (!diff && isFaweEnabled(plugin)) {
+            pasteWithFawe(plugin, clipboard, world, to, ignoreAir, onProgress, onComplete);
+            return;
+        }
+
+        int budgetMillis = Math.max(1, plugin.getConfig().getInt("schematics.paste-budget-ms", 10));
+        List<Piece> pieces = Collections.singletonList(new Piece(clipboard, world, to));
+        new ChunkedPasteTask(plugin, pieces, groupOverlapping(pieces), ignoreAir, diff, budgetMillis, onProgress, onComplete)
+                .runTaskTimer(plugin, 1L, 1L);
+    }
+
+    /**
+     * Pastes several clipboards as one map. Pieces whose bounds don't overlap are
+     * written in interleaved chunk-section batches that share one tick budget
+     * ({@code schematics.composite-paste-budget-ms}), so they finish together;
+     * overlapping pieces are pasted in list order. With FAWE, groups of
+     * non-overlapping pieces are pasted in parallel and the pieces within a
+     * group one after another, so later pieces still win on overlap.
+     *
+     * @param plugin     The plugin instance (for scheduling and config)
+     * @param pieces     The clipboards and where to paste them
+     * @param diff       Whether to skip blocks that already match the world
+     * @param onProgress Callback receiving combined progress after each tick of work (may be null)
+     * @param onComplete Callback receiving the combined result, always run on the main thread
+     */
+    public static void pasteAll(Plugin plugin, List<Piece> pieces, boolean diff,
+                                Consumer<PasteProgress> onProgress, Consumer<PasteResult> onComplete) {
+        if (pieces.size() == 1) {
+            Piece piece = pieces.get(0);
+            paste(plugin, piece.clipboard, piece.world, piece.to, false, diff, onProgress, onComplete);
+            return;
+        }
+        if (pieces.isEmpty()) {
+            onComplete.accept(new PasteResult(true, 0, 0, 0, false));
+            return;
+        }
+        Consumer<PasteResult> done = recording(plugin, onComplete);
+
+        if (!diff && isFaweEnabled(plugin)) {
+            // Overlap groups run side by side on FAWE's queue; wait for all of them
+            long start = System.nanoTime();
+            List<PasteResult> results = new ArrayList<>();
+            Runnable pieceDone = () -> {
+                if (results.size() == pieces.size()) {
+                    done.accept(combine(results, (System.nanoTime() - start) / 1_000_000L));
+                }
+            };
+            for (List<Integer> lane : groupOverlapping(pieces)) {
+                pasteLaneWithFawe(plugin, pieces, lane, 0, results, pieceDone);
+            }
+            return;
+        }
+
+        int budgetMillis = Math.max(1, plugin.getConfig().getInt("schematics.composite-paste-budget-ms",
+                plugin.getConfig().getInt("schematics.paste-budget-ms", 10)));
+        new ChunkedPasteTask(plugin, pieces, groupOverlapping(pieces), false, diff, budgetMillis, onProgress, done)
+                .runTaskTimer(plugin, 1L, 1L);
+    }
+
+    /**
+     * Pastes the pieces of one overlap group with FAWE, each starting once the
+     * previous one has completed. Callbacks run on the main thread.
+     */
+    private static void pasteLaneWithFawe(Plugin plugin, List<Piece> pieces, List<Integer> lane, int next,
+                                          List<PasteResult> results, Runnable pieceDone) {
+        Piece piece = pieces.get(lane.get(next));
+        pasteWithFawe(plugin, piece.clipboard, piece.world, piece.to, false, null, result -> {
+            results.add(result);
+            if (next + 1 < lane.size()) {
+                pasteLaneWithFawe(plugin, pieces, lane, next + 1, results, pieceDone);
+            }
+            pieceDone.run();
+        });
+    }
+
+    /**
+     * Wraps a paste callback so the paste's time and throughput are recorded.
+     */
+    private static Consumer<PasteResult> recording(Plugin plugin, Consumer<PasteResult> onComplete) {
+        return result -> {
+            if (result.isSuccess()) {
+                MetricsRegistry.record(plugin, MetricsRegistry.PASTE_TIME, result.getElapsedMillis());
+                MetricsRegistry.record(plugin, MetricsRegistry.PASTE_BLOCKS_PER_SECOND,
+                        result.getBlocksPlaced() * 1000L / Math.max(1, result.getElapsedMillis()));
+            }
+            onComplete.accept(result);
+        };
+    }
+
+    private static PasteResult combine(List<PasteResult> results, long elapsedMillis) {
+        boolean success = true;
+        long blocksPlaced = 0;
+        for (PasteResult result : results) {
+            success &= result.isSuccess();
+            blocksPlaced += result.getBlocksPlaced();
+        }
+        return new PasteResult(success, blocksPlaced, elapsedMillis, 0, true);
+    }
+
+    /**
+     * Restores individual world positions from a clipboard, for example the positions
+     * recorded by a {@link BlockChangeJournal}. The work is spread over ticks using the
+     * same budget as chunked pastes. Positions outside the clipboard region are skipped.
+     *
+     * @param plugin     The plugin instance (for scheduling and config)
+     * @param clipboard  The clipboard to restore blocks from
+     * @param world      The world to restore blocks in
+     * @param to         The position the clipboard origin was pasted at
+     * @param positions  Packed world positions (see {@link BlockChangeJournal#pack(int, int, int)})
+     * @param onComplete Callback receiving the result, always run on the main thread
+     */
+    public static void restore(Plugin plugin, Clipboard clipboard, World world, BlockVector3 to, long[] positions,
+                               Consumer<PasteResult> onComplete) {
+        int budgetMillis = Math.max(1, plugin.getConfig().getInt("schematics.paste-budget-ms", 10));
+        new RestoreTask(plugin, clipboard, world, to, positions, budgetMillis, onComplete)
+                .runTaskTimer(plugin, 1L, 1L);
+    }
+
+    /**
+     * Checks whether diff pastes are enabled ({@code schematics.paste-mode: diff}).
+     *
+     * @param plugin The plugin instance
+     * @return true if only changed blocks should be written
+     */
+    public static boolean isDiffMode(Plugin plugin) {
+        return "diff".equalsIgnoreCase(plugin.getConfig().getString("schematics.paste-mode", "full"));
+    }
+
+    /**
+     * Checks whether pastes should be handed off to FAWE.
+     *
+     * @param plugin The plugin instance
+     * @return true if FAWE is installed and enabled in config
+     */
+    public static boolean isFaweEnabled(Plugin plugin) {
+        return plugin.getConfig().getBoolean("schematics.use-fawe", true)
+                && Bukkit.getPluginManager().isPluginEnabled("FastAsyncWorldEdit");
+    }
+
+    /**
+     * Gets the offset that maps clipboard coordinates to world coordinates
+     * when the clipboard origin is pasted at {@code to}.
+     *
+     * @param clipboard The clipboard
+     * @param to        The paste position
+     * @return The clipboard-to-world offset
+     */
+    public static BlockVector3 getPasteOffset(Clipboard clipboard, BlockVector3 to) {
+        return to.subtract(clipboard.getOrigin());
+    }
+
+    private static void pasteWithFawe(Plugin plugin, Clipboard clipboard, World world, BlockVector3 to, boolean ignoreAir,
+                                      Consumer<PasteProgress> onProgress, Consumer<PasteResult> onComplete) {
+        long volume = clipboard.getRegion().getVolume();
+        long start = System.nanoTime();
+        if (onProgress != null) {
+            onProgress.accept(new PasteProgress(0, volume, 0, 1));
+        }
+
+        // FAWE edit sessions are safe to drive off the main thread and flush through FAWE's own queue
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            boolean success = false;
+            try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(world))) {
+                Operation operation = new ClipboardHolder(clipboard)
+                        .createPaste(editSession)
+                        .to(to)
+                        .ignoreAirBlocks(ignoreAir)
+                        .build();
+                Operations.complete(operation);
+                success = true;
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "FAWE paste failed", e);
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            PasteResult result = new PasteResult(success, success ? volume : 0, elapsed, 0, true);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (onProgress != null && result.isSuccess()) {
+                    onProgress.accept(new PasteProgress(volume, volume, 1, 1));
+                }
+                onComplete.accept(result);
+            });
+        });
+    }
+
+    /**
+     * Splits a clipboard region into boxes aligned to the world's chunk sections.
+     * Boxes are expressed in clipboard coordinates and ordered chunk by chunk so
+     * consecutive writes stay within the same chunk.
+     */
+    static List<int[]> computeSections(Region region, BlockVector3 offset) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int worldMinX = min.getBlockX() + offset.getBlockX();
+        int worldMinY = min.getBlockY() + offset.getBlockY();
+        int worldMinZ = min.getBlockZ() + offset.getBlockZ();
+        int worldMaxX = max.getBlockX() + offset.getBlockX();
+        int worldMaxY = max.getBlockY() + offset.getBlockY();
+        int worldMaxZ = max.getBlockZ() + offset.getBlockZ();
+
+        List<int[]> sections = new ArrayList<>();
+        for (int cx = Math.floorDiv(worldMinX, SECTION_SIZE); cx <= Math.floorDiv(worldMaxX, SECTION_SIZE); cx++) {
+            for (int cz = Math.floorDiv(worldMinZ, SECTION_SIZE); cz <= Math.floorDiv(worldMaxZ, SECTION_SIZE); cz++) {
+                for (int cy = Math.floorDiv(worldMinY, SECTION_SIZE); cy <= Math.floorDiv(worldMaxY, SECTION_SIZE); cy++) {
+                    int x1 = Math.max(worldMinX, cx * SECTION_SIZE);
+                    int y1 = Math.max(worldMinY, cy * SECTION_SIZE);
+                    int z1 = Math.max(worldMinZ, cz * SECTION_SIZE);
+                    int x2 = Math.min(worldMaxX, cx * SECTION_SIZE + SECTION_SIZE - 1);
+                    int y2 = Math.min(worldMaxY, cy * SECTION_SIZE + SECTION_SIZE - 1);
+                    int z2 = Math.min(worldMaxZ, cz * SECTION_SIZE + SECTION_SIZE - 1);
+                    sections.add(new int[] {
+                            x1 - offset.getBlockX(), y1 - offset.getBlockY(), z1 - offset.getBlockZ(),
+                            x2 - offset.getBlockX(), y2 - offset.getBlockY(), z2 - offset.getBlockZ()
+                    });
+                }
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * One clipboard of a multi-piece paste and where its origin goes.
+     */
+    public static final class Piece {
+        final Clipboard clipboard;
+        final World world;
+        final BlockVector3 to;
+        final BlockVector3 min;
+        final BlockVector3 max;
+
+        /**
+         * Creates a piece.
+         *
+         * @param clipboard The clipboard to paste
+         * @param world     The world to paste into
+         * @param to        The position the clipboard origin is pasted at
+         */
+        public Piece(Clipboard clipboard, World world, BlockVector3 to) {
+            this.clipboard = clipboard;
+            this.world = world;
+            this.to = to;
+            BlockVector3 offset = getPasteOffset(clipboard, to);
+            this.min = clipboard.getRegion().getMinimumPoint().add(offset);
+            this.max = clipboard.getRegion().getMaximumPoint().add(offset);
+        }
+
+        /**
+         * Gets the world the piece is pasted into.
+         *
+         * @return The world
+         */
+        public World getWorld() {
+            return world;
+        }
+
+        /**
+         * Gets the position the clipboard origin is pasted at.
+         *
+         * @return The paste position
+         */
+        public BlockVector3 getTo() {
+            return to;
+        }
+
+        /**
+         * Gets the lowest world corner the piece covers.
+         *
+         * @return The minimum point
+         */
+        public BlockVector3 getMin() {
+            return min;
+        }
+
+        /**
+         * Gets the highest world corner the piece covers.
+         *
+         * @return The maximum point
+         */
+        public BlockVector3 getMax() {
+            return max;
+        }
+
+        boolean overlaps(Piece other) {
+            return world.equals(other.world)
+                    && min.getBlockX() <= other.max.getBlockX() && other.min.getBlockX() <= max.getBlockX()
+                    && min.getBlockY() <= other.max.getBlockY() && other.min.getBlockY() <= max.getBlockY()
+                    && min.getBlockZ() <= other.max.getBlockZ() && other.min.getBlockZ() <= max.getBlockZ();
+        }
+    }
+
+    private static long volumeOf(int[] box) {
+        return (long) (box[3] - box[0] + 1) * (box[4] - box[1] + 1) * (box[5] - box[2] + 1);
+    }
+
+    /**
+     * Splits pieces into lanes: pieces whose bounds overlap share a lane and are
+     * pasted one after another in their given order, so later pieces still win
+     * where they overlap. Disjoint lanes can be pasted side by side.
+     *
+     * @param pieces The pieces to paste
+     * @return Lanes of indexes into {@code pieces}, each in ascending order
+     */
+    static List<List<Integer>> groupOverlapping(List<Piece> pieces) {
+        int[] lane = new int[pieces.size()];
+        for (int i = 0; i < lane.length; i++) {
+            lane[i] = i;
+        }
+        for (int i = 0; i < pieces.size(); i++) {
+            for (int j = i + 1; j < pieces.size(); j++) {
+                if (pieces.get(i).overlaps(pieces.get(j))) {
+                    int a = findLane(lane, i);
+                    int b = findLane(lane, j);
+                    lane[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> lanes = new LinkedHashMap<>();
+        for (int i = 0; i < pieces.size(); i++) {
+            lanes.computeIfAbsent(findLane(lane, i), k -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(lanes.values());
+    }
+
+    private static int findLane(int[] lane, int i) {
+        while (lane[i] != i) {
+            lane[i] = lane[lane[i]];
+            i = lane[i];
+        }
+        return i;
+    }
+
+    /**
+     * Write position within one clipboard's chunk sections.
+     */
+    private static class SectionCursor {
+        final Clipboard clipboard;
+        final World world;
+        final BlockVector3 offset;
+        final List<int[]> sections;
+        final long totalBlocks;
+
+        int sectionIndex = 0;
+        long cursor = 0;
+        long processedBlocks = 0;
+        long blocksPlaced = 0;
+        long unchangedBlocks = 0;
+
+        SectionCursor(Clipboard clipboard, World world, BlockVector3 to) {
+            this.clipboard = clipboard;
+            this.world = world;
+            this.offset = getPasteOffset(clipboard, to);
+            this.sections = computeSections(clipboard.getRegion(), offset);
+
+            long total = 0;
+            for (int[] section : sections) {
+                total += volumeOf(section);
+            }
+            this.totalBlocks = total;
+        }
+
+        boolean isDone() {
+            return sectionIndex >= sections.size();
+        }
+
+        /**
+         * Writes the current section until it is done or the deadline passes,
+         * then pastes the clipboard's entities if that was the last section.
+         */
+        void writeSection(boolean ignoreAir, boolean diff, long deadline) throws WorldEditException {
+            Region region = clipboard.getRegion();
+            try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(world))) {
+                int[] box = sections.get(sectionIndex);
+                int width = box[3] - box[0] + 1;
+                int length = box[5] - box[2] + 1;
+                long volume = volumeOf(box);
+
+                int sinceCheck = 0;
+                while (cursor < volume) {
+                    int x = box[0] + (int) (cursor % width);
+                    int z = box[2] + (int) ((cursor / width) % length);
+                    int y = box[1] + (int) (cursor / ((long) width * length));
+                    cursor++;
+                    processedBlocks++;
+
+                    BlockVector3 pos = BlockVector3.at(x, y, z);
+                    if (region.contains(pos)) {
+                        BaseBlock block = clipboard.getFullBlock(pos);
+                        if (!ignoreAir || !block.getBlockType().getMaterial().isAir()) {
+                            BlockVector3 target = pos.add(offset);
+                            // Blocks with NBT (chests, signs...) are always rewritten to restore their contents
+                            if (diff && !block.hasNbtData()
+                                    && editSession.getBlock(target).equals(block.toImmutableState())) {
+                                unchangedBlocks++;
+                            } else {
+                                editSession.setBlock(target, block);
+                                blocksPlaced++;
+                            }
+                        }
+                    }
+
+                    if (++sinceCheck >= TIME_CHECK_INTERVAL) {
+                        sinceCheck = 0;
+                        if (System.nanoTime() >= deadline) {
+                            break;
+                        }
+                    }
+                }
+
+                if (cursor >= volume) {
+                    sectionIndex++;
+                    cursor = 0;
+                }
+                if (isDone()) {
+                    pasteEntities(editSession);
+                }
+            }
+        }
+
+        private void pasteEntities(EditSession editSession) {
+            for (com.sk89q.worldedit.entity.Entity entity : clipboard.getEntities()) {
+                if (entity.getState() == null) {
+                    continue;
+                }
+                Location source = entity.getLocation();
+                Location target = new Location(editSession, source.toVector().add(offset.toVector3()),
+                        source.getYaw(), source.getPitch());
+                editSession.createEntity(target, entity.getState());
+            }
+        }
+    }
+
+    /**
+     * Repeating main-thread task that writes clipboard sections until the tick budget runs out.
+     * With several lanes it takes one section from each lane in turn, so disjoint
+     * pieces progress together; each lane pastes its own pieces in order.
+     */
+    private static class ChunkedPasteTask extends BukkitRunnable {
+        private final Plugin plugin;
+        private final boolean ignoreAir;
+        private final boolean diff;
+        private final long budgetNanos;
+        private final Consumer<PasteProgress> onProgress;
+        private final Consumer<PasteResult> onComplete;
+
+        private final List<SectionCursor> cursors = new ArrayList<>();
+        private final List<Deque<SectionCursor>> lanes = new ArrayList<>();
+        private final long totalBlocks;
+        private final int totalSections;
+        private final long startNanos = System.nanoTime();
+
+        private int nextLane = 0;
+        private int ticks = 0;
+        private boolean finished = false;
+
+        ChunkedPasteTask(Plugin plugin, List<Piece> pieces, List<List<Integer>> laneIndexes, boolean ignoreAir,
+                         boolean diff, int budgetMillis, Consumer<PasteProgress> onProgress, Consumer<PasteResult> onComplete) {
+            this.plugin = plugin;
+            this.ignoreAir = ignoreAir;
+            this.diff = diff;
+            this.budgetNanos = budgetMillis * 1_000_000L;
+            this.onProgress = onProgress;
+            this.onComplete = onComplete;
+
+            long blocks = 0;
+            int sectionCount = 0;
+            for (List<Integer> indexes : laneIndexes) {
+                Deque<SectionCursor> lane = new ArrayDeque<>();
+                for (int index : indexes) {
+                    Piece piece = pieces.get(index);
+                    SectionCursor cursor = new SectionCursor(piece.clipboard, piece.world, piece.to);
+                    cursors.add(cursor);
+                    lane.add(cursor);
+                    blocks += cursor.totalBlocks;
+                    sectionCount += cursor.sections.size();
+                }
+                lanes.add(lane);
+            }
+            this.totalBlocks = blocks;
+            this.totalSections = sectionCount;
+        }
+
+        @Override
+        public void run() {
+            if (finished) {
+                return;
+            }
+            ticks++;
+            long deadline = System.nanoTime() + TickHealthMonitor.scaleNanos(plugin, budgetNanos);
+
+            try {
+                while (!lanes.isEmpty() && System.nanoTime() < deadline) {
+                    nextLane %= lanes.size();
+                    Deque<SectionCursor> lane = lanes.get(nextLane);
+                    SectionCursor cursor = lane.peekFirst();
+                    if (!cursor.isDone()) {
+                        cursor.writeSection(ignoreAir, diff, deadline);
+                    }
+                    if (cursor.isDone()) {
+                        lane.pollFirst();
+                    }
+                    if (lane.isEmpty()) {
+                        lanes.remove(nextLane);
+                    } else {
+                        nextLane++;
+                    }
+                }
+            } catch (WorldEditException e) {
+                plugin.getLogger().log(Level.SEVERE, "Chunked paste failed", e);
+                finish(false);
+                return;
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Unexpected error during chunked paste", e);
+                finish(false);
+                return;
+            }
+
+            if (onProgress != null) {
+                long processed = 0;
+                int sectionsDone = 0;
+                for (SectionCursor cursor : cursors) {
+                    processed += cursor.processedBlocks;
+                    sectionsDone += cursor.sectionIndex;
+                }
+                onProgress.accept(new PasteProgress(processed, totalBlocks, sectionsDone, totalSections));
+            }
+
+            if (lanes.isEmpty()) {
+                finish(true);
+            }
+        }
+
+        private void finish(boolean success) {
+            finished = true;
+            cancel();
+            long blocksPlaced = 0;
+            long unchangedBlocks = 0;
+            for (SectionCursor cursor : cursors) {
+                blocksPlaced += cursor.blocksPlaced;
+                unchangedBlocks += cursor.unchangedBlocks;
+            }
+            long elapsed = (System.nanoTime() - startNanos) / 1_000_000L;
+            onComplete.accept(new PasteResult(success, blocksPlaced, unchangedBlocks, elapsed, ticks, false, diff));
+        }
+    }
+
+    /**
+     * Repeating main-thread task that restores a list of packed positions until the tick budget runs out.
+     */
+    private static class RestoreTask extends BukkitRunnable {
+        private final Plugin plugin;
+        private final Clipboard clipboard;
+        private final World world;
+        private final BlockVector3 offset;
+        private final long[] positions;
+        private final long budgetNanos;
+        private final Consumer<PasteResult> onComplete;
+        private final long startNanos = System.nanoTime();
+
+        private int index = 0;
+        private long blocksPlaced = 0;
+        private int ticks = 0;
+        private boolean finished = false;
+
+        RestoreTask(Plugin plugin, Clipboard clipboard, World world, BlockVector3 to, long[] positions,
+                    int budgetMillis, Consumer<PasteResult> onComplete) {
+            this.plugin = plugin;
+            this.clipboard = clipboard;
+            this.world = world;
+            this.offset = getPasteOffset(clipboard, to);
+            this.positions = positions;
+            this.budgetNanos = budgetMillis * 1_000_000L;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public void run() {
+            if (finished) {
+                return;
+            }
+            ticks++;
+            long tickStart = System.nanoTime();
+            long tickBudget = TickHealthMonitor.scaleNanos(plugin, budgetNanos);
+            Region region = clipboard.getRegion();
+
+            try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(world))) {
+                int sinceCheck = 0;
+                while (index < positions.length) {
+                    long packed = positions[index++];
+                    BlockVector3 target = BlockVector3.at(BlockChangeJournal.unpackX(packed),
+                            BlockChangeJournal.unpackY(packed), BlockChangeJournal.unpackZ(packed));
+                    BlockVector3 pos = target.subtract(offset);
+                    if (region.contains(pos)) {
+                        editSession.setBlock(target, clipboard.getFullBlock(pos));
+                        blocksPlaced++;
+                    }
+
+                    if (++sinceCheck >= TIME_CHECK_INTERVAL) {
+                        sinceCheck = 0;
+                        if (System.nanoTime() - tickStart >= tickBudget) {
+                            break;
+                        }
+                    }
+                }
+            } catch (WorldEditException e) {
+                plugin.getLogger().log(Level.SEVERE, "Journal restore failed", e);
+                finish(false);
+                return;
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Unexpected error during journal restore", e);
+                finish(false);
+                return;
+            }
+
+            if (index >= positions.length) {
+                finish(true);
+            }
+        }
+
+        private void finish(boolean success) {
+            finished = true;
+            cancel();
+            long elapsed = (System.nanoTime() - startNanos) / 1_000_000L;
+            onComplete.accept(new PasteResult(success, blocksPlaced, 0, elapsed, ticks, false, false));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package net.mythofy.mapMorph;
+
+/**
+ * Snapshot of how far a running schematic paste has progressed.
+ * Instances are handed to progress callbacks once per tick of paste work.
+ */
+public class PasteProgress {
+    private final long processedBlocks;
+    private final long totalBlocks;
+    private final int completedSections;
+    private final int totalSections;
+
+    public PasteProgress(long processedBlocks, long totalBlocks, int completedSections, int totalSections) {
+        this.processedBlocks = processedBlocks;
+        this.totalBlocks = totalBlocks;
+        this.completedSections = completedSections;
+        this.totalSections = totalSections;
+    }
+
+    public long getProcessedBlocks() {
+        return processedBlocks;
+    }
+
+    public long getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    public int getCompletedSections() {
+        return completedSections;
+    }
+
+    public int getTotalSections() {
+        return totalSections;
+    }
+
+    /**
+     * Gets the completed fraction of the paste.
+     *
+     * @return A value between 0.0 and 1.0
+     */
+    public double getFraction() {
+        return totalBlocks <= 0 ? 1.0 : Math.min(1.0, (double) processedBlocks / totalBlocks);
+    }
+}
@@ -0,0 +1,102 @@
+package net.mythofy.mapMorph;
+
+/**
+ * Outcome of a schematic paste run by the {@link PasteEngine}.
+ */
+public class PasteResult {
+    private final boolean success;
+    private final long blocksPlaced;
+    private final long unchangedBlocks;
+    private final long elapsedMillis;
+    private final int ticks;
+    private final boolean async;
+    private final boolean diff;
+
+    public PasteResult(boolean success, long blocksPlaced, long elapsedMillis, int ticks, boolean async) {
+        this(success, blocksPlaced, 0, elapsedMillis, ticks, async, false);
+    }
+
+    public PasteResult(boolean success, long blocksPlaced, long unchangedBlocks, long elapsedMillis, int ticks,
+                       boolean async, boolean diff) {
+        this.success = success;
+        this.blocksPlaced = blocksPlaced;
+        this.unchangedBlocks = unchangedBlocks;
+        this.elapsedMillis = elapsedMillis;
+        this.ticks = ticks;
+        this.async = async;
+        this.diff = diff;
+    }
+
+    /**
+     * Creates a result for a paste that failed before any work was done.
+     *
+     * @return A failed result
+     */
+    public static PasteResult failed() {
+        return new PasteResult(false, 0, 0, 0, false);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Gets the number of blocks written to the world.
+     * For pastes handed off to FAWE this is the clipboard volume.
+     *
+     * @return The block count
+     */
+    public long getBlocksPlaced() {
+        return blocksPlaced;
+    }
+
+    /**
+     * Gets the number of blocks a diff paste skipped because the world already matched.
+     *
+     * @return The unchanged block count, always 0 for full pastes
+     */
+    public long getUnchangedBlocks() {
+        return unchangedBlocks;
+    }
+
+    /**
+     * Gets the number of blocks that differed from the live world and were written.
+     * For full pastes every written block counts as changed.
+     *
+     * @return The changed block count
+     */
+    public long getChangedBlocks() {
+        return blocksPlaced;
+    }
+
+    /**
+     * Whether only blocks differing from the live world were written.
+     *
+     * @return true for diff pastes
+     */
+    public boolean isDiff() {
+        return diff;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the number of server ticks the paste was spread over.
+     *
+     * @return The tick count, or 0 for async pastes
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Whether the paste was handed off to FAWE's async queue.
+     *
+     * @return true if FAWE performed the paste
+     */
+    public boolean isAsync() {
+        return async;
+    }
+}
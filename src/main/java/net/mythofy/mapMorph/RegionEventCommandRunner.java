@@ -2,7 +2,6 @@ package net.mythofy.mapMorph;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.List;
 
@@ -12,14 +11,14 @@ import java.util.List;
  */
 public class RegionEventCommandRunner {
 
-    private final JavaPlugin plugin;
+    private final MapMorph plugin;
 
     /**
      * Creates a new command runner.
      *
      * @param plugin The plugin instance
      */
-    public RegionEventCommandRunner(JavaPlugin plugin) {
+    public RegionEventCommandRunner(MapMorph plugin) {
         this.plugin = plugin;
     }
     
@@ -33,10 +32,13 @@ public class RegionEventCommandRunner {
      * @param player The player involved, if any (can be null for global events)
      */
     public void runCommands(String mapName, String eventType, Player player) {
-        String path = "maps." + mapName + ".commands." + eventType;
-        List<String> commands = plugin.getConfig().getStringList(path);
+        MapDefinition definition = plugin.getMapRegistry().get(mapName);
+        if (definition == null) {
+            return;
+        }
         
-        if (commands == null || commands.isEmpty()) {
+        List<String> commands = definition.getCommands(eventType);
+        if (commands.isEmpty()) {
             return;
         }
         
@@ -0,0 +1,232 @@
+package net.mythofy.mapMorph;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the header fields of a schematic without decoding its block data.
+ * <p>
+ * Understands Sponge schematics (v1-v3, {@code .schem}) and MCEdit schematics
+ * ({@code .schematic}). The gzip stream still has to be inflated, but block,
+ * biome and entity data is skipped over instead of being parsed into a clipboard.
+ */
+class SchematicHeaderReader {
+
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_SHORT = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_COMPOUND = 10;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+
+    /**
+     * The header of one schematic. Fields that the format doesn't have are -1.
+     */
+    static final class Header {
+        int formatVersion = -1;
+        int dataVersion = -1;
+        int width;
+        int height;
+        int length;
+        int offsetX;
+        int offsetY;
+        int offsetZ;
+        int paletteSize = -1;
+    }
+
+    private SchematicHeaderReader() {
+    }
+
+    /**
+     * Reads a schematic's header.
+     *
+     * @param file The schematic file
+     * @return The header
+     * @throws IOException if the file can't be read or isn't a schematic
+     */
+    static Header read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), 8192), 8192))) {
+            if (in.readUnsignedByte() != TAG_COMPOUND) {
+                throw new IOException("Not a schematic: " + file.getName());
+            }
+            in.readUTF();
+            Header header = new Header();
+            readCompound(in, header, true);
+            if (header.width <= 0 || header.height <= 0 || header.length <= 0) {
+                throw new IOException("Schematic has no dimensions: " + file.getName());
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Reads the fields of the root compound, or of the {@code Schematic} and
+     * {@code Blocks} compounds that hold them in v3, and skips everything else.
+     */
+    private static void readCompound(DataInputStream in, Header header, boolean root) throws IOException {
+        while (true) {
+            int type = in.readUnsignedByte();
+            if (type == TAG_END) {
+                return;
+            }
+            String name = in.readUTF();
+            switch (name) {
+                case "Version":
+                    header.formatVersion = readInt(in, type);
+                    break;
+                case "DataVersion":
+                    header.dataVersion = readInt(in, type);
+                    break;
+                case "Width":
+                    header.width = readInt(in, type) & 0xFFFF;
+                    break;
+                case "Height":
+                    header.height = readInt(in, type) & 0xFFFF;
+                    break;
+                case "Length":
+                    header.length = readInt(in, type) & 0xFFFF;
+                    break;
+                case "Offset":
+                    if (type == TAG_INT_ARRAY) {
+                        int size = in.readInt();
+                        int[] offset = new int[size];
+                        for (int i = 0; i < size; i++) {
+                            offset[i] = in.readInt();
+                        }
+                        if (size >= 3) {
+                            header.offsetX = offset[0];
+                            header.offsetY = offset[1];
+                            header.offsetZ = offset[2];
+                        }
+                    } else {
+                        skip(in, type);
+                    }
+                    break;
+                case "WEOffsetX":
+                    header.offsetX = readInt(in, type);
+                    break;
+                case "WEOffsetY":
+                    header.offsetY = readInt(in, type);
+                    break;
+                case "WEOffsetZ":
+                    header.offsetZ = readInt(in, type);
+                    break;
+                case "PaletteMax":
+                    header.paletteSize = readInt(in, type);
+                    break;
+                case "Palette":
+                    if (type == TAG_COMPOUND) {
+                        header.paletteSize = skipCounting(in);
+                    } else {
+                        skip(in, type);
+                    }
+                    break;
+                case "Schematic":
+                case "Blocks":
+                    if (root && type == TAG_COMPOUND) {
+                        readCompound(in, header, name.equals("Schematic"));
+                    } else {
+                        skip(in, type);
+                    }
+                    break;
+                default:
+                    skip(in, type);
+                    break;
+            }
+        }
+    }
+
+    private static int readInt(DataInputStream in, int type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_INT:
+                return in.readInt();
+            default:
+                skip(in, type);
+                return -1;
+        }
+    }
+
+    /**
+     * Skips a compound's payload, returning how many entries it had.
+     */
+    private static int skipCounting(DataInputStream in) throws IOException {
+        int count = 0;
+        while (true) {
+            int type = in.readUnsignedByte();
+            if (type == TAG_END) {
+                return count;
+            }
+            in.readUTF();
+            skip(in, type);
+            count++;
+        }
+    }
+
+    private static void skip(DataInputStream in, int type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                skipBytes(in, 1);
+                break;
+            case TAG_SHORT:
+                skipBytes(in, 2);
+                break;
+            case TAG_INT:
+            case TAG_FLOAT:
+                skipBytes(in, 4);
+                break;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                skipBytes(in, 8);
+                break;
+            case TAG_BYTE_ARRAY:
+                skipBytes(in, in.readInt());
+                break;
+            case TAG_STRING:
+                skipBytes(in, in.readUnsignedShort());
+                break;
+            case TAG_LIST: {
+                int elementType = in.readUnsignedByte();
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    skip(in, elementType);
+                }
+                break;
+            }
+            case TAG_COMPOUND:
+                skipCounting(in);
+                break;
+            case TAG_INT_ARRAY:
+                skipBytes(in, in.readInt() * 4L);
+                break;
+            case TAG_LONG_ARRAY:
+                skipBytes(in, in.readInt() * 8L);
+                break;
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static void skipBytes(InputStream in, long count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Negative NBT length");
+        }
+        in.skipNBytes(count);
+    }
+}
@@ -0,0 +1,388 @@
+package net.mythofy.mapMorph;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps the header of every known schematic in memory, so listing, validation,
+ * tab completion and {@code /mapmorph info} never touch the disk.
+ * <p>
+ * The index covers every {@code .schem}/{@code .schematic} file in the maps folder
+ * plus any schematic a configured map points to elsewhere. It is built on a
+ * background thread at startup. Headers are read without decoding block data
+ * and saved to {@code schematic-index.yml}; on the next start, files whose size
+ * and modification time haven't changed are taken from there without being opened.
+ */
+public class SchematicIndex {
+
+    private static final String INDEX_FILE = "schematic-index.yml";
+
+    private final MapMorph plugin;
+    private final File indexFile;
+    private volatile Map<String, Entry> entries = Collections.emptyMap();
+    private volatile boolean ready = false;
+
+    /**
+     * Creates an empty index. Call {@link #rebuildAsync()} to fill it.
+     *
+     * @param plugin The plugin instance
+     */
+    public SchematicIndex(MapMorph plugin) {
+        this.plugin = plugin;
+        this.indexFile = new File(plugin.getDataFolder(), INDEX_FILE);
+    }
+
+    /**
+     * Rescans the schematics on a background thread.
+     */
+    public void rebuildAsync() {
+        Set<File> files = collectFiles();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> rebuild(files));
+    }
+
+    /**
+     * Re-reads one schematic's header, or drops it from the index if it no longer exists.
+     * Blocks on file I/O, so call it off the main thread.
+     *
+     * @param file The schematic file
+     */
+    public synchronized void refresh(File file) {
+        String key = keyOf(file);
+        Map<String, Entry> updated = new LinkedHashMap<>(entries);
+        Entry entry = file.isFile() ? readEntry(file, null) : null;
+        if (entry != null) {
+            updated.put(key, entry);
+        } else {
+            updated.remove(key);
+        }
+        entries = Collections.unmodifiableMap(updated);
+        save(updated.values());
+    }
+
+    private synchronized void rebuild(Set<File> files) {
+        long start = System.nanoTime();
+        Map<String, Entry> cached = load();
+        Map<String, Entry> rebuilt = new LinkedHashMap<>();
+        int read = 0;
+        for (File file : files) {
+            if (!file.isFile()) {
+                continue;
+            }
+            String key = keyOf(file);
+            Entry entry = readEntry(file, cached.get(key));
+            if (entry == null) {
+                continue;
+            }
+            if (entry != cached.get(key)) {
+                read++;
+            }
+            rebuilt.put(key, entry);
+        }
+        entries = Collections.unmodifiableMap(rebuilt);
+        ready = true;
+        if (read > 0 || rebuilt.size() != cached.size()) {
+            save(rebuilt.values());
+        }
+
+        if (plugin.getConfig().getBoolean("general.debug", false)) {
+            plugin.getLogger().info("Indexed " + rebuilt.size() + " schematics (" + read + " headers read) in "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+
+    /**
+     * Gets the maps folder's schematics plus every schematic a map points to.
+     */
+    private Set<File> collectFiles() {
+        Set<File> files = new LinkedHashSet<>();
+        File[] listed = plugin.getMapsFolder() != null ? plugin.getMapsFolder().listFiles(
+                (dir, name) -> isSchematicName(name)) : null;
+        if (listed != null) {
+            for (File file : listed) {
+                files.add(file.getAbsoluteFile());
+            }
+        }
+        for (String mapName : plugin.listAllMaps()) {
+            File file = plugin.getSchematicFileForMap(mapName);
+            if (file != null) {
+                files.add(file.getAbsoluteFile());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Reads a file's header, reusing the cached entry if the file hasn't changed.
+     *
+     * @return The entry, or null if the file couldn't be read
+     */
+    private Entry readEntry(File file, Entry cached) {
+        long lastModified = file.lastModified();
+        long size = file.length();
+        if (cached != null && cached.lastModified == lastModified && cached.size == size) {
+            return cached;
+        }
+        try {
+            SchematicHeaderReader.Header header = SchematicHeaderReader.read(file);
+            return new Entry(file.getAbsoluteFile(), lastModified, size, header.width, header.height, header.length,
+                    header.offsetX, header.offsetY, header.offsetZ, header.paletteSize, header.dataVersion,
+                    header.formatVersion);
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("Failed to read schematic header of " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, Entry> load() {
+        Map<String, Entry> cached = new HashMap<>();
+        if (!indexFile.isFile()) {
+            return cached;
+        }
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(indexFile);
+        for (Map<?, ?> raw : config.getMapList("schematics")) {
+            try {
+                Entry entry = Entry.fromMap(raw);
+                cached.put(keyOf(entry.file), entry);
+            } catch (RuntimeException e) {
+                // Malformed entry; the file is read again
+            }
+        }
+        return cached;
+    }
+
+    private void save(Collection<Entry> all) {
+        YamlConfiguration config = new YamlConfiguration();
+        List<Map<String, Object>> serialized = new ArrayList<>();
+        for (Entry entry : all) {
+            serialized.add(entry.toMap());
+        }
+        config.set("schematics", serialized);
+        try {
+            config.save(indexFile);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to save " + INDEX_FILE + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets a schematic's indexed header.
+     *
+     * @param file The schematic file
+     * @return The entry, or null if the file isn't indexed (yet)
+     */
+    public Entry get(File file) {
+        return file != null ? entries.get(keyOf(file)) : null;
+    }
+
+    /**
+     * Gets every indexed schematic.
+     *
+     * @return The entries
+     */
+    public Collection<Entry> getAll() {
+        return entries.values();
+    }
+
+    /**
+     * Gets the names (without extension) of the schematics in the maps folder.
+     *
+     * @return The names, sorted
+     */
+    public List<String> getSchematicNames() {
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        File mapsFolder = plugin.getMapsFolder() != null ? plugin.getMapsFolder().getAbsoluteFile() : null;
+        for (Entry entry : entries.values()) {
+            if (entry.file.getParentFile() != null && entry.file.getParentFile().equals(mapsFolder)) {
+                names.add(entry.getName());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Whether the first scan has finished. Until then every lookup misses.
+     *
+     * @return true once the index has been built
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Checks whether a file name has a schematic extension.
+     *
+     * @param name The file name
+     * @return true for {@code .schem} and {@code .schematic} files
+     */
+    public static boolean isSchematicName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".schem") || lower.endsWith(".schematic");
+    }
+
+    private static String keyOf(File file) {
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * The header of one indexed schematic.
+     */
+    public static final class Entry {
+        private final File file;
+        private final long lastModified;
+        private final long size;
+        private final int width;
+        private final int height;
+        private final int length;
+        private final int offsetX;
+        private final int offsetY;
+        private final int offsetZ;
+        private final int paletteSize;
+        private final int dataVersion;
+        private final int formatVersion;
+
+        Entry(File file, long lastModified, long size, int width, int height, int length,
+              int offsetX, int offsetY, int offsetZ, int paletteSize, int dataVersion, int formatVersion) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.width = width;
+            this.height = height;
+            this.length = length;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.paletteSize = paletteSize;
+            this.dataVersion = dataVersion;
+            this.formatVersion = formatVersion;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("path", file.getAbsolutePath());
+            map.put("last-modified", lastModified);
+            map.put("size", size);
+            map.put("width", width);
+            map.put("height", height);
+            map.put("length", length);
+            map.put("offset", List.of(offsetX, offsetY, offsetZ));
+            map.put("palette-size", paletteSize);
+            map.put("data-version", dataVersion);
+            map.put("format-version", formatVersion);
+            return map;
+        }
+
+        private static Entry fromMap(Map<?, ?> map) {
+            List<?> offset = (List<?>) map.get("offset");
+            return new Entry(new File((String) map.get("path")),
+                    ((Number) map.get("last-modified")).longValue(),
+                    ((Number) map.get("size")).longValue(),
+                    ((Number) map.get("width")).intValue(),
+                    ((Number) map.get("height")).intValue(),
+                    ((Number) map.get("length")).intValue(),
+                    ((Number) offset.get(0)).intValue(),
+                    ((Number) offset.get(1)).intValue(),
+                    ((Number) offset.get(2)).intValue(),
+                    ((Number) map.get("palette-size")).intValue(),
+                    ((Number) map.get("data-version")).intValue(),
+                    ((Number) map.get("format-version")).intValue());
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the schematic's file name without its extension.
+         *
+         * @return The name
+         */
+        public String getName() {
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            return dot > 0 ? name.substring(0, dot) : name;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Gets the number of blocks the schematic covers, air included.
+         *
+         * @return Width × height × length
+         */
+        public long getBlockCount() {
+            return (long) width * height * length;
+        }
+
+        public int getOffsetX() {
+            return offsetX;
+        }
+
+        public int getOffsetY() {
+            return offsetY;
+        }
+
+        public int getOffsetZ() {
+            return offsetZ;
+        }
+
+        /**
+         * Gets the number of distinct block states in the palette.
+         *
+         * @return The palette size, or -1 for formats without a palette
+         */
+        public int getPaletteSize() {
+            return paletteSize;
+        }
+
+        /**
+         * Gets the Minecraft data version the schematic was saved with.
+         *
+         * @return The data version, or -1 if the format doesn't record it
+         */
+        public int getDataVersion() {
+            return dataVersion;
+        }
+
+        /**
+         * Gets the schematic format version (Sponge 1-3).
+         *
+         * @return The format version, or -1 for MCEdit schematics
+         */
+        public int getFormatVersion() {
+            return formatVersion;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package net.mythofy.mapMorph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the maps folder, and any other folder a map's schematic lives in, and
+ * applies schematic changes without {@code /mapmorph reload}.
+ * <p>
+ * Events are debounced per file by {@code schematics.watch.debounce-ms}, so a
+ * schematic that is still being written is only handled once it has settled. A
+ * changed file is re-read into the {@link SchematicIndex} and dropped from the
+ * {@link ClipboardCache}; if it was cached it is parsed again in the background.
+ * All of this happens on the watcher's own daemon thread, never the main thread.
+ */
+public class SchematicWatcher {
+
+    private final MapMorph plugin;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private volatile long debounceMillis;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a stopped watcher.
+     *
+     * @param plugin The plugin instance
+     */
+    public SchematicWatcher(MapMorph plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts or stops watching to match {@code schematics.watch.enabled}, and
+     * starts watching any folder newly referenced by a map.
+     */
+    public synchronized void applyConfig() {
+        if (!plugin.getConfig().getBoolean("schematics.watch.enabled", true)) {
+            stop();
+            return;
+        }
+        debounceMillis = Math.max(0, plugin.getConfig().getLong("schematics.watch.debounce-ms", 1000));
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                WatchService service = watchService;
+                thread = new Thread(() -> run(service), "MapMorph-Schematic-Watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            for (Path directory : collectDirectories()) {
+                if (!directories.containsValue(directory)) {
+                    WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    directories.put(key, directory);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to watch schematic folders: " + e.getMessage());
+            e.printStackTrace();
+            stop();
+        }
+    }
+
+    /**
+     * Stops watching.
+     */
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+            watchService = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        directories.clear();
+    }
+
+    private Set<Path> collectDirectories() {
+        Set<Path> result = new HashSet<>();
+        if (plugin.getMapsFolder() != null && plugin.getMapsFolder().isDirectory()) {
+            result.add(plugin.getMapsFolder().getAbsoluteFile().toPath());
+        }
+        for (String mapName : plugin.listAllMaps()) {
+            File parent = plugin.getSchematicFileForMap(mapName).getAbsoluteFile().getParentFile();
+            if (parent != null && parent.isDirectory()) {
+                result.add(parent.toPath());
+            }
+        }
+        return result;
+    }
+
+    private void run(WatchService service) {
+        // Changed files and when they last changed
+        Map<Path, Long> pending = new LinkedHashMap<>();
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = service.take();
+                } else {
+                    long oldest = pending.values().iterator().next();
+                    long waitMillis = debounceMillis - (System.nanoTime() - oldest) / 1_000_000L;
+                    key = waitMillis > 0 ? service.poll(waitMillis, TimeUnit.MILLISECONDS) : service.poll();
+                }
+
+                if (key != null) {
+                    Path directory;
+                    synchronized (this) {
+                        directory = directories.get(key);
+                    }
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Too many changes to tell apart; rescan everything
+                            pending.clear();
+                            plugin.getClipboardCache().clear();
+                            plugin.getSchematicIndex().rebuildAsync();
+                            continue;
+                        }
+                        Path name = (Path) event.context();
+                        if (directory != null && SchematicIndex.isSchematicName(name.toString())) {
+                            Path path = directory.resolve(name);
+                            // Re-insert so the map stays ordered by last change
+                            pending.remove(path);
+                            pending.put(path, System.nanoTime());
+                        }
+                    }
+                    key.reset();
+                }
+
+                long now = System.nanoTime();
+                Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Path, Long> entry = iterator.next();
+                    if ((now - entry.getValue()) / 1_000_000L < debounceMillis) {
+                        break;
+                    }
+                    iterator.remove();
+                    apply(entry.getKey().toFile());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Updates the index and cache for one settled file.
+     */
+    private void apply(File file) {
+        try {
+            if (!isRelevant(file)) {
+                return;
+            }
+            plugin.getSchematicIndex().refresh(file);
+            boolean wasCached = plugin.getClipboardCache().invalidate(file);
+            if (wasCached && file.isFile()) {
+                plugin.getClipboardCache().preload(file);
+            }
+            if (plugin.getConfig().getBoolean("general.debug", false)) {
+                plugin.getLogger().info("Schematic " + file.getName() + (file.isFile() ? " changed" : " removed")
+                        + ", updated the index" + (wasCached ? " and cache" : ""));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to apply change to schematic " + file.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Whether a file is in the maps folder, already indexed, or used by a map,
+     * so unrelated schematics next to an external map's file are ignored.
+     */
+    private boolean isRelevant(File file) {
+        File absolute = file.getAbsoluteFile();
+        if (plugin.getMapsFolder() != null && plugin.getMapsFolder().getAbsoluteFile().equals(absolute.getParentFile())) {
+            return true;
+        }
+        if (plugin.getSchematicIndex().get(absolute) != null) {
+            return true;
+        }
+        for (String mapName : plugin.listAllMaps()) {
+            if (plugin.getSchematicFileForMap(mapName).getAbsoluteFile().equals(absolute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
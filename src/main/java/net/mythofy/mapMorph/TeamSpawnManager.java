@@ -2,52 +2,36 @@ package net.mythofy.mapMorph;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class TeamSpawnManager {
 
-    private final JavaPlugin plugin;
+    private final MapMorph plugin;
 
-    public TeamSpawnManager(JavaPlugin plugin) {
+    public TeamSpawnManager(MapMorph plugin) {
         this.plugin = plugin;
     }
 
     /**
-     * Get all team names for a map from config.
+     * Get all team names for a map from its compiled definition.
      */
     public Set<String> getTeamsForMap(String mapName) {
-        ConfigurationSection section = plugin.getConfig().getConfigurationSection("maps." + mapName + ".teams");
-        if (section == null) return Collections.emptySet();
-        return section.getKeys(false);
+        MapDefinition definition = plugin.getMapRegistry().get(mapName);
+        if (definition == null) return Collections.emptySet();
+        return definition.getTeamSpawns().keySet();
     }
 
     /**
-     * Get all spawn locations for a team on a map.
+     * Get all spawn locations for a team on a map. Spawns in unloaded worlds are skipped.
+     * The list and locations are copies.
      */
     public List<Location> getSpawnsForTeam(String mapName, String team) {
-        List<Location> spawns = new ArrayList<>();
-        ConfigurationSection section = plugin.getConfig().getConfigurationSection("maps." + mapName + ".teams." + team + ".spawns");
-        if (section != null) {
-            for (String key : section.getKeys(false)) {
-                String path = "maps." + mapName + ".teams." + team + ".spawns." + key;
-                String world = plugin.getConfig().getString(path + ".world");
-                double x = plugin.getConfig().getDouble(path + ".x");
-                double y = plugin.getConfig().getDouble(path + ".y");
-                double z = plugin.getConfig().getDouble(path + ".z");
-                float yaw = (float) plugin.getConfig().getDouble(path + ".yaw");
-                float pitch = (float) plugin.getConfig().getDouble(path + ".pitch");
-                World bukkitWorld = Bukkit.getWorld(world);
-                if (bukkitWorld != null) {
-                    spawns.add(new Location(bukkitWorld, x, y, z, yaw, pitch));
-                }
-            }
-        }
-        return spawns;
+        MapDefinition definition = plugin.getMapRegistry().get(mapName);
+        if (definition == null) return Collections.emptyList();
+        return definition.getTeamSpawns().getOrDefault(team, Collections.emptyList());
     }
 
     /**
@@ -67,10 +51,13 @@ public class TeamSpawnManager {
     }
 
     /**
-     * Teleport players to their team's spawn points (round-robin).
+     * Teleport players to their team's spawn points (round-robin), a batch per tick.
+     *
+     * @return A future completed on the main thread once everyone has been teleported
      */
-    public void teleportTeamsToSpawns(String mapName, Map<UUID, String> assignments) {
+    public CompletableFuture<TeleportResult> teleportTeamsToSpawns(String mapName, Map<UUID, String> assignments) {
         Map<String, Integer> teamSpawnIndex = new HashMap<>();
+        Map<Player, Location> destinations = new LinkedHashMap<>();
         for (Map.Entry<UUID, String> entry : assignments.entrySet()) {
             Player player = Bukkit.getPlayer(entry.getKey());
             if (player == null) continue;
@@ -78,10 +65,10 @@ public class TeamSpawnManager {
             List<Location> spawns = getSpawnsForTeam(mapName, team);
             if (spawns.isEmpty()) continue;
             int idx = teamSpawnIndex.getOrDefault(team, 0);
-            Location spawn = spawns.get(idx % spawns.size());
-            player.teleport(spawn);
+            destinations.put(player, spawns.get(idx % spawns.size()));
             teamSpawnIndex.put(team, idx + 1);
-            player.sendMessage("§aTeleported to " + team + " spawn for map " + mapName + "!");
         }
+        return TeleportScheduler.teleport(plugin, destinations, player -> player.sendMessage(
+                "§aTeleported to " + assignments.get(player.getUniqueId()) + " spawn for map " + mapName + "!"));
     }
-}
\ No newline at end of file
+}
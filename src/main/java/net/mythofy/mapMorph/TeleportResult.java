@@ -0,0 +1,67 @@
+package net.mythofy.mapMorph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a mass teleport run by the {@link TeleportScheduler}.
+ */
+public class TeleportResult {
+    private final int requested;
+    private final int teleported;
+    private final List<Long> batchMicros;
+    private final long elapsedMillis;
+
+    TeleportResult(int requested, int teleported, List<Long> batchMicros, long elapsedMillis) {
+        this.requested = requested;
+        this.teleported = teleported;
+        this.batchMicros = Collections.unmodifiableList(batchMicros);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Creates a result for a teleport with no players.
+     *
+     * @return An empty result
+     */
+    public static TeleportResult empty() {
+        return new TeleportResult(0, 0, Collections.emptyList(), 0);
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getTeleported() {
+        return teleported;
+    }
+
+    /**
+     * Gets the number of players that weren't moved because they went offline
+     * or the teleport was refused (e.g., cancelled by another plugin).
+     *
+     * @return The failed count
+     */
+    public int getFailed() {
+        return requested - teleported;
+    }
+
+    /**
+     * Gets the main-thread time of every batch, in the order they ran.
+     *
+     * @return Microseconds per batch
+     */
+    public List<Long> getBatchMicros() {
+        return batchMicros;
+    }
+
+    /**
+     * Gets the time from scheduling the teleports to the last one finishing,
+     * including chunk preloading.
+     *
+     * @return The elapsed milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,174 @@
+package net.mythofy.mapMorph;
+
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Teleports many players without loading all their destination chunks in one tick.
+ * <p>
+ * Destination chunks are requested up front with {@link World#getChunkAtAsync(int, int)}.
+ * Every tick, up to {@code teleport.batch-size} players whose destination chunk has
+ * loaded are teleported, using {@link Player#teleportAsync(Location)} unless
+ * {@code teleport.use-async-teleport} is off. The batch size follows the
+ * {@link TickHealthMonitor}'s budget scale.
+ */
+public class TeleportScheduler {
+
+    /**
+     * Teleports players in batches. Must be called from the main thread.
+     *
+     * @param plugin       The plugin instance (for scheduling and config)
+     * @param destinations Where each player goes
+     * @param onTeleported Called on the main thread for each player that arrived (may be null)
+     * @return A future completed on the main thread once every teleport has finished
+     */
+    public static CompletableFuture<TeleportResult> teleport(Plugin plugin, Map<Player, Location> destinations,
+                                                             Consumer<Player> onTeleported) {
+        if (destinations.isEmpty()) {
+            return CompletableFuture.completedFuture(TeleportResult.empty());
+        }
+
+        int batchSize = Math.max(1, plugin.getConfig().getInt("teleport.batch-size", 10));
+        boolean preload = plugin.getConfig().getBoolean("teleport.preload-chunks", true);
+        boolean async = plugin.getConfig().getBoolean("teleport.use-async-teleport", true);
+
+        // Players heading to the same chunk share one load
+        Map<World, Map<Long, CompletableFuture<?>>> chunkLoads = new HashMap<>();
+        List<PendingTeleport> pending = new LinkedList<>();
+        for (Map.Entry<Player, Location> entry : destinations.entrySet()) {
+            Location to = entry.getValue();
+            CompletableFuture<?> chunk = null;
+            if (preload) {
+                int chunkX = to.getBlockX() >> 4;
+                int chunkZ = to.getBlockZ() >> 4;
+                chunk = chunkLoads.computeIfAbsent(to.getWorld(), w -> new HashMap<>())
+                        .computeIfAbsent(((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL),
+                                key -> to.getWorld().getChunkAtAsync(chunkX, chunkZ));
+            }
+            pending.add(new PendingTeleport(entry.getKey(), to, chunk));
+        }
+
+        CompletableFuture<TeleportResult> future = new CompletableFuture<>();
+        new BatchTask(plugin, pending, batchSize, async, onTeleported, future).runTaskTimer(plugin, 0L, 1L);
+        return future;
+    }
+
+    private static final class PendingTeleport {
+        final Player player;
+        final Location to;
+        final CompletableFuture<?> chunk;
+
+        PendingTeleport(Player player, Location to, CompletableFuture<?> chunk) {
+            this.player = player;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        boolean isReady() {
+            // A failed load isn't retried; the teleport loads the chunk itself
+            return chunk == null || chunk.isDone();
+        }
+    }
+
+    private static final class BatchTask extends BukkitRunnable {
+        private final Plugin plugin;
+        private final List<PendingTeleport> pending;
+        private final int batchSize;
+        private final boolean async;
+        private final Consumer<Player> onTeleported;
+        private final CompletableFuture<TeleportResult> future;
+        private final int requested;
+        private final long startNanos = System.nanoTime();
+        private final List<Long> batchMicros = new ArrayList<>();
+        private int teleported = 0;
+        private int inFlight = 0;
+
+        BatchTask(Plugin plugin, List<PendingTeleport> pending, int batchSize, boolean async,
+                  Consumer<Player> onTeleported, CompletableFuture<TeleportResult> future) {
+            this.plugin = plugin;
+            this.pending = pending;
+            this.batchSize = batchSize;
+            this.async = async;
+            this.onTeleported = onTeleported;
+            this.future = future;
+            this.requested = pending.size();
+        }
+
+        @Override
+        public void run() {
+            long batchStart = System.nanoTime();
+            int limit = TickHealthMonitor.scaleCount(plugin, batchSize);
+            int sent = 0;
+            Iterator<PendingTeleport> it = pending.iterator();
+            while (it.hasNext() && sent < limit) {
+                PendingTeleport next = it.next();
+                if (!next.isReady()) {
+                    continue;
+                }
+                it.remove();
+                if (!next.player.isOnline()) {
+                    continue;
+                }
+                sent++;
+                if (async) {
+                    inFlight++;
+                    next.player.teleportAsync(next.to).whenComplete((arrived, error) -> {
+                        boolean success = error == null && arrived != null && arrived;
+                        if (Bukkit.isPrimaryThread()) {
+                            finishAsync(next.player, success);
+                        } else {
+                            Bukkit.getScheduler().runTask(plugin, () -> finishAsync(next.player, success));
+                        }
+                    });
+                } else if (next.player.teleport(next.to)) {
+                    arrived(next.player);
+                }
+            }
+            if (sent > 0) {
+                long micros = (System.nanoTime() - batchStart) / 1000;
+                batchMicros.add(micros);
+                MetricsRegistry.record(plugin, MetricsRegistry.TELEPORT_BATCH_TIME, micros);
+            }
+            if (pending.isEmpty()) {
+                cancel();
+                tryComplete();
+            }
+        }
+
+        private void finishAsync(Player player, boolean arrived) {
+            inFlight--;
+            if (arrived) {
+                arrived(player);
+            }
+            tryComplete();
+        }
+
+        private void arrived(Player player) {
+            teleported++;
+            if (onTeleported != null) {
+                onTeleported.accept(player);
+            }
+        }
+
+        private void tryComplete() {
+            if (pending.isEmpty() && inFlight == 0 && !future.isDone()) {
+                future.complete(new TeleportResult(requested, teleported, batchMicros,
+                        (System.nanoTime() - startNanos) / 1_000_000));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package net.mythofy.mapMorph;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Tracks how long server ticks take and scales MapMorph's per-tick work to match.
+ * <p>
+ * Every tick's duration feeds a moving average of MSPT (milliseconds per tick).
+ * While it is above {@code performance.target-mspt} the budget scale shrinks
+ * multiplicatively; while there is clear headroom it grows back additively, up to
+ * {@code performance.max-budget-scale}. Paste, restore and cleanup budgets and
+ * teleport batch sizes are multiplied by the scale, and automatic rotations wait
+ * while MSPT is above {@code performance.rotation-defer-mspt}.
+ */
+public class TickHealthMonitor implements Listener {
+
+    private static final double SMOOTHING = 0.1;
+    private static final double SHRINK_FACTOR = 0.85;
+    private static final double GROW_STEP = 0.02;
+    private static final double HEADROOM = 0.75;
+
+    private final MapMorph plugin;
+    private volatile boolean enabled;
+    private volatile double targetMspt;
+    private volatile double deferMspt;
+    private volatile double minScale;
+    private volatile double maxScale;
+    private volatile double mspt = 0;
+    private volatile double scale = 1.0;
+
+    /**
+     * Creates the monitor and starts sampling tick times.
+     *
+     * @param plugin The plugin instance
+     */
+    public TickHealthMonitor(MapMorph plugin) {
+        this.plugin = plugin;
+        reload();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Reads the thresholds from {@code performance} in the config.
+     */
+    public void reload() {
+        enabled = plugin.getConfig().getBoolean("performance.adaptive-budgets", true);
+        targetMspt = plugin.getConfig().getDouble("performance.target-mspt", 40.0);
+        deferMspt = plugin.getConfig().getDouble("performance.rotation-defer-mspt", 45.0);
+        minScale = Math.max(0.01, plugin.getConfig().getDouble("performance.min-budget-scale", 0.1));
+        maxScale = Math.max(minScale, plugin.getConfig().getDouble("performance.max-budget-scale", 2.0));
+        if (!enabled) {
+            scale = 1.0;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTickEnd(ServerTickEndEvent event) {
+        double average = mspt == 0 ? event.getTickDuration() : mspt + SMOOTHING * (event.getTickDuration() - mspt);
+        mspt = average;
+        if (!enabled) {
+            return;
+        }
+        if (average > targetMspt) {
+            scale = Math.max(minScale, scale * SHRINK_FACTOR);
+        } else if (average < targetMspt * HEADROOM) {
+            scale = Math.min(maxScale, scale + GROW_STEP);
+        }
+    }
+
+    /**
+     * Gets the moving average of recent tick durations.
+     *
+     * @return Milliseconds per tick
+     */
+    public double getMspt() {
+        return mspt;
+    }
+
+    /**
+     * Gets the factor per-tick work budgets are multiplied by.
+     *
+     * @return The budget scale, 1.0 when adaptive budgets are off
+     */
+    public double getBudgetScale() {
+        return scale;
+    }
+
+    /**
+     * Whether ticks are slow enough that automatic rotations should wait.
+     *
+     * @return true while MSPT is above {@code performance.rotation-defer-mspt}
+     */
+    public boolean isOverloaded() {
+        return mspt > deferMspt;
+    }
+
+    /**
+     * Scales a per-tick time budget by a plugin's current budget scale.
+     *
+     * @param plugin The plugin instance
+     * @param nanos  The configured budget
+     * @return The budget to use this tick (at least 1 nanosecond)
+     */
+    public static long scaleNanos(Plugin plugin, long nanos) {
+        return Math.max(1, (long) (nanos * getScale(plugin)));
+    }
+
+    /**
+     * Scales a per-tick work count by a plugin's current budget scale.
+     *
+     * @param plugin The plugin instance
+     * @param count  The configured count
+     * @return The count to use this tick (at least 1)
+     */
+    public static int scaleCount(Plugin plugin, int count) {
+        return Math.max(1, (int) Math.round(count * getScale(plugin)));
+    }
+
+    private static double getScale(Plugin plugin) {
+        if (plugin instanceof MapMorph && ((MapMorph) plugin).getTickHealthMonitor() != null) {
+            return ((MapMorph) plugin).getTickHealthMonitor().getBudgetScale();
+        }
+        return 1.0;
+    }
+}
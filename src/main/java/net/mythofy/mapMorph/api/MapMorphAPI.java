@@ -1,6 +1,9 @@
 package net.mythofy.mapMorph.api;
 
 import net.mythofy.mapMorph.MapMorph;
+import net.mythofy.mapMorph.MapSwapResult;
+import net.mythofy.mapMorph.TeleportResult;
+import net.mythofy.mapMorph.TeleportScheduler;
 import net.mythofy.mapMorph.extensions.EconomyHook;
 import net.mythofy.mapMorph.extensions.MapPlayerData;
 import net.mythofy.mapMorph.extensions.PluginIntegrationManager;
@@ -10,6 +13,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -45,35 +49,27 @@ public class MapMorphAPI {
      * Switches to a different map.
      * 
      * @param mapName The name of the map to switch to
-     * @return A future that completes when the map switch is done
+     * @return A future that completes with the swap's outcome and stage timings
      */
-    public static CompletableFuture<Boolean> switchMap(String mapName) {
+    public static CompletableFuture<MapSwapResult> switchMap(String mapName) {
         return switchMap(mapName, 0);
     }
     
     /**
-     * Switches to a different map with a countdown.
+     * Switches to a different map with a countdown. The schematic is parsed
+     * while the countdown runs, then players are moved out, the map is pasted,
+     * and its regions and team spawns are set up.
      * 
      * @param mapName The name of the map to switch to
      * @param countdown Seconds to count down before switching
-     * @return A future that completes when the map switch is done
+     * @return A future that completes on the main thread with the swap's outcome and
+     *         the time each stage took; use {@link MapSwapResult#isSuccess()} for a plain result
      */
-    public static CompletableFuture<Boolean> switchMap(String mapName, int countdown) {
+    public static CompletableFuture<MapSwapResult> switchMap(String mapName, int countdown) {
         if (plugin == null) {
             throw new IllegalStateException("MapMorphAPI not initialized");
         }
-        
-        // Create a CompletableFuture to track the async operation
-        CompletableFuture<Boolean> future = new CompletableFuture<>();
-        
-        // Implementation would load the schematic and apply region changes
-        // This is a placeholder implementation
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            plugin.recordMapSwap(mapName);
-            future.complete(true);
-        }, countdown * 20L);
-        
-        return future;
+        return plugin.getSwapPipeline().swap(mapName, countdown);
     }
     
     /**
@@ -128,22 +124,41 @@ public class MapMorphAPI {
     }
     
     /**
-     * Teleports all online players to spawn points for the current map.
+     * Teleports all online players to random spawn points for the current map.
+     * Destination chunks are loaded first and players are moved in batches over
+     * several ticks, as configured under {@code teleport}.
      * 
-     * @return The number of players teleported
+     * @return A future completed on the main thread once every teleport has finished
      */
-    public static int teleportAllPlayersToSpawn() {
-        if (plugin == null) {
-            return 0;
+    public static CompletableFuture<TeleportResult> teleportAllPlayersToSpawnAsync() {
+        if (plugin == null || plugin.getCurrentMap() == null) {
+            return CompletableFuture.completedFuture(TeleportResult.empty());
+        }
+        
+        List<Location> spawns = plugin.getSpawnLocationsForMap(plugin.getCurrentMap());
+        if (spawns.isEmpty()) {
+            return CompletableFuture.completedFuture(TeleportResult.empty());
         }
         
-        int count = 0;
+        Map<Player, Location> destinations = new LinkedHashMap<>();
         for (Player player : Bukkit.getOnlinePlayers()) {
-            if (teleportPlayerToSpawn(player)) {
-                count++;
-            }
+            destinations.put(player, spawns.get(random.nextInt(spawns.size())));
         }
-        return count;
+        return TeleportScheduler.teleport(plugin, destinations, null);
+    }
+    
+    /**
+     * Teleports all online players to spawn points for the current map.
+     * 
+     * @return The number of players being teleported
+     * @deprecated Teleports now finish over several ticks; use
+     *             {@link #teleportAllPlayersToSpawnAsync()} to learn when they are done
+     */
+    @Deprecated
+    public static int teleportAllPlayersToSpawn() {
+        TeleportResult result = teleportAllPlayersToSpawnAsync().getNow(null);
+        // Still running: every online player has been given a destination
+        return result != null ? result.getTeleported() : Bukkit.getOnlinePlayers().size();
     }
     
     /**
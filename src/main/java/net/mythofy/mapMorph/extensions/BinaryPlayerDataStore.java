@@ -0,0 +1,635 @@
+package net.mythofy.mapMorph.extensions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stores player data in an append-only binary log ({@code data.bin}).
+ * <p>
+ * Every save appends one length-prefixed, checksummed record per changed player.
+ * The store keeps an index of where each player's latest record starts, so a
+ * single player can be loaded when they join without reading everyone else.
+ * When the log holds too many stale records it is compacted: each player's latest
+ * record is copied (or rewritten, if it just changed) to a new file that is swapped
+ * in atomically. A torn record at the end (from a crash mid-write) is detected
+ * by its checksum and discarded. A damaged record in the middle of the log is
+ * skipped over instead: the file is copied aside as {@code data.bin.corrupt-<time>}
+ * and the records around it are kept and compacted into a clean log on the next save.
+ * <p>
+ * The log is read with positional reads rather than memory-mapped: a mapped file
+ * can't be replaced on Windows until the mapping is garbage collected, and a
+ * single mapping would cap the log at 2 GB.
+ * <p>
+ * File layout: {@code int magic, int version}, then records of
+ * {@code int length, int crc32, payload}.
+ */
+public class BinaryPlayerDataStore implements PlayerDataStore {
+
+    private static final int MAGIC = 0x4D4D5044; // "MMPD"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    // UUID (16 bytes) plus map count
+    private static final int MIN_RECORD_SIZE = 20;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_STRING = 6;
+
+    private final File file;
+    private final Logger logger;
+    private final double compactRatio;
+    private final long compactMinBytes;
+
+    // Player to the file position of their latest record
+    private final Map<UUID, Long> index = new HashMap<>();
+    private boolean scanned = false;
+    private FileChannel channel;
+    private long validLength = 0;
+    private long recordCount = 0;
+    // Set when damaged records were skipped mid-file; the next save compacts them away
+    private boolean needsCompaction = false;
+    private volatile long bytesWritten = 0;
+
+    /**
+     * Creates a binary store.
+     *
+     * @param file            The log file (usually {@code player_data/data.bin})
+     * @param logger          The logger for warnings
+     * @param compactRatio    Compact once the log holds this many records per live player
+     * @param compactMinBytes Never compact logs smaller than this
+     */
+    public BinaryPlayerDataStore(File file, Logger logger, double compactRatio, long compactMinBytes) {
+        this.file = file;
+        this.logger = logger;
+        this.compactRatio = Math.max(1.0, compactRatio);
+        this.compactMinBytes = compactMinBytes;
+    }
+
+    /**
+     * Checks whether the log file exists yet.
+     *
+     * @return true if there is a file to load
+     */
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public synchronized Map<UUID, Map<String, Map<String, Object>>> loadAll() throws IOException {
+        scan();
+        Map<UUID, Map<String, Map<String, Object>>> players = new HashMap<>();
+        readIndexed((playerId, record) -> players.put(playerId, readMaps(record)));
+        return players;
+    }
+
+    @Override
+    public synchronized Map<String, Map<String, Object>> loadPlayer(UUID playerId) throws IOException {
+        ensureScanned();
+        Long position = index.get(playerId);
+        if (position == null) {
+            return new HashMap<>();
+        }
+
+        try (FileChannel readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            readFully(readChannel, header, position);
+            ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+            readFully(readChannel, record, position + RECORD_HEADER_SIZE);
+            record.position(16); // Skip the UUID
+            return readMaps(record);
+        }
+    }
+
+    @Override
+    public synchronized void forEachStat(StatVisitor visitor) throws IOException {
+        ensureScanned();
+        readIndexed((playerId, record) -> {
+            for (Map.Entry<String, Map<String, Object>> mapEntry : readMaps(record).entrySet()) {
+                for (Map.Entry<String, Object> stat : mapEntry.getValue().entrySet()) {
+                    visitor.visit(playerId, mapEntry.getKey(), stat.getKey(), stat.getValue());
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized void save(Map<UUID, Map<String, Map<String, Object>>> changed,
+                                  Map<UUID, Map<String, Map<String, Object>>> all) throws IOException {
+        if (changed.isEmpty()) {
+            return;
+        }
+        ensureScanned();
+        openForAppend();
+
+        long liveCount = index.size();
+        for (UUID playerId : changed.keySet()) {
+            if (!index.containsKey(playerId)) {
+                liveCount++;
+            }
+        }
+        if (recordCount + changed.size() > liveCount * compactRatio && channel.size() >= compactMinBytes) {
+            compact(changed);
+            return;
+        }
+
+        long start = channel.size();
+        Map<UUID, Long> positions = new HashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Map.Entry<UUID, Map<String, Map<String, Object>>> entry : changed.entrySet()) {
+            positions.put(entry.getKey(), start + bytes.size());
+            writeRecord(out, entry.getKey(), entry.getValue());
+        }
+        out.flush();
+
+        writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+        channel.force(false);
+        validLength = channel.size();
+        recordCount += changed.size();
+        bytesWritten += bytes.size();
+        index.putAll(positions);
+    }
+
+    /**
+     * Replaces the log with one record per player, dropping all stale records.
+     * The new file is written next to the old one and moved into place atomically.
+     *
+     * @param all All player data
+     * @throws IOException if the new file cannot be written
+     */
+    public synchronized void rewrite(Map<UUID, Map<String, Map<String, Object>>> all) throws IOException {
+        replaceFile((tempChannel, positions) -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (Map.Entry<UUID, Map<String, Map<String, Object>>> entry : all.entrySet()) {
+                positions.put(entry.getKey(), tempChannel.position() + bytes.size());
+                writeRecord(out, entry.getKey(), entry.getValue());
+                flushChunk(tempChannel, bytes);
+            }
+            writeFully(tempChannel, ByteBuffer.wrap(bytes.toByteArray()));
+        });
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    /**
+     * Compacts the log: players in {@code changed} are written fresh and
+     * everyone else's latest record is copied over as-is.
+     */
+    private void compact(Map<UUID, Map<String, Map<String, Object>>> changed) throws IOException {
+        replaceFile((tempChannel, positions) -> {
+            // Closed again before the new file is moved over this one
+            try (FileChannel readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                LogReader source = new LogReader(readChannel);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                for (Map.Entry<UUID, Long> entry : indexByPosition()) {
+                    if (changed.containsKey(entry.getKey())) {
+                        continue;
+                    }
+                    positions.put(entry.getKey(), tempChannel.position() + bytes.size());
+                    long position = entry.getValue();
+                    int length = RECORD_HEADER_SIZE + source.read(position, RECORD_HEADER_SIZE).getInt(0);
+                    byte[] copy = new byte[length];
+                    source.read(position, length).get(copy);
+                    out.write(copy);
+                    flushChunk(tempChannel, bytes);
+                }
+                for (Map.Entry<UUID, Map<String, Map<String, Object>>> entry : changed.entrySet()) {
+                    positions.put(entry.getKey(), tempChannel.position() + bytes.size());
+                    writeRecord(out, entry.getKey(), entry.getValue());
+                    flushChunk(tempChannel, bytes);
+                }
+                writeFully(tempChannel, ByteBuffer.wrap(bytes.toByteArray()));
+            }
+        });
+    }
+
+    /**
+     * Writes a new log next to the old one, syncs it and moves it into place
+     * atomically, then switches the index to the new record positions.
+     */
+    private void replaceFile(RecordWriter writer) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory " + parent);
+        }
+
+        Map<UUID, Long> positions = new HashMap<>();
+        File temp = new File(parent, file.getName() + ".tmp");
+        try (FileChannel tempChannel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(tempChannel, header);
+            writer.write(tempChannel, positions);
+            tempChannel.force(true);
+        }
+
+        closeChannel();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        index.clear();
+        index.putAll(positions);
+        scanned = true;
+        recordCount = positions.size();
+        validLength = file.length();
+        bytesWritten += validLength;
+    }
+
+    private void ensureScanned() throws IOException {
+        if (!scanned) {
+            scan();
+        }
+    }
+
+    /**
+     * Reads the whole log once to find each player's latest record.
+     */
+    private void scan() throws IOException {
+        index.clear();
+        recordCount = 0;
+        validLength = 0;
+        needsCompaction = false;
+        scanned = true;
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+
+        try (FileChannel readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            LogReader reader = new LogReader(readChannel);
+            long size = reader.size();
+            ByteBuffer header = reader.read(0, HEADER_SIZE);
+            if (header == null || header.getInt() != MAGIC) {
+                throw new IOException("Not a MapMorph player data file: " + file.getName());
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported player data file version " + version + ": " + file.getName());
+            }
+            validLength = HEADER_SIZE;
+
+            CRC32 crc = new CRC32();
+            long skippedBytes = 0;
+            long position = HEADER_SIZE;
+            while (position < size) {
+                int length = recordLengthAt(reader, position, crc);
+                if (length < 0) {
+                    // Damaged record: resync at the next valid one, if there is any
+                    long next = findNextRecord(reader, position + 1, crc);
+                    if (next < 0) {
+                        // Nothing valid follows, so this is a torn tail
+                        break;
+                    }
+                    skippedBytes += next - position;
+                    position = next;
+                    continue;
+                }
+
+                ByteBuffer uuid = reader.read(position + RECORD_HEADER_SIZE, 16);
+                index.put(new UUID(uuid.getLong(), uuid.getLong()), position);
+                position += RECORD_HEADER_SIZE + length;
+                validLength = position;
+                recordCount++;
+            }
+
+            if (skippedBytes > 0) {
+                File backup = new File(file.getAbsoluteFile().getParentFile(),
+                        file.getName() + ".corrupt-" + System.currentTimeMillis());
+                Files.copy(file.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                needsCompaction = true;
+                logger.warning("Skipped " + skippedBytes + " bytes of damaged player data in " + file.getName()
+                        + " and kept the " + index.size() + " players around them; the original file was copied to "
+                        + backup.getName());
+            }
+            if (validLength < size) {
+                logger.warning("Discarding " + (size - validLength) + " bytes of incomplete player data at the end of "
+                        + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Checks the record starting at a position.
+     *
+     * @return The record's payload length, or -1 if there is no intact record there
+     */
+    private static int recordLengthAt(LogReader reader, long position, CRC32 crc) throws IOException {
+        ByteBuffer header = reader.read(position, RECORD_HEADER_SIZE);
+        if (header == null) {
+            return -1;
+        }
+        int length = header.getInt(0);
+        int checksum = header.getInt(4);
+        long payloadStart = position + RECORD_HEADER_SIZE;
+        if (length < MIN_RECORD_SIZE || length > reader.size() - payloadStart) {
+            return -1;
+        }
+        crc.reset();
+        reader.update(crc, payloadStart, length);
+        return (int) crc.getValue() == checksum ? length : -1;
+    }
+
+    /**
+     * Finds the first intact record at or after a position.
+     *
+     * @return The record's position, or -1 if none follows
+     */
+    private static long findNextRecord(LogReader reader, long from, CRC32 crc) throws IOException {
+        for (long position = from; reader.size() - position >= RECORD_HEADER_SIZE + MIN_RECORD_SIZE; position++) {
+            if (recordLengthAt(reader, position, crc) >= 0) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Passes each player's latest record, positioned after the UUID, to the consumer.
+     */
+    private void readIndexed(BiConsumer<UUID, ByteBuffer> consumer) throws IOException {
+        if (index.isEmpty()) {
+            return;
+        }
+        try (FileChannel readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            LogReader reader = new LogReader(readChannel);
+            for (Map.Entry<UUID, Long> entry : indexByPosition()) {
+                long position = entry.getValue();
+                int length = reader.read(position, RECORD_HEADER_SIZE).getInt(0);
+                ByteBuffer record = reader.read(position + RECORD_HEADER_SIZE, length);
+                record.position(16); // Skip the UUID
+                consumer.accept(entry.getKey(), record.slice());
+            }
+        }
+    }
+
+    /**
+     * Gets the index in file order, so records are read front to back.
+     */
+    private List<Map.Entry<UUID, Long>> indexByPosition() {
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        return entries;
+    }
+
+    private void openForAppend() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        if (!file.exists() || file.length() == 0) {
+            rewrite(new HashMap<>());
+        } else if (needsCompaction) {
+            // Copy the intact records into a clean log rather than appending after damage
+            compact(new HashMap<>());
+        }
+        needsCompaction = false;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        if (validLength >= HEADER_SIZE && channel.size() > validLength) {
+            // Drop the torn record found while loading; nothing valid follows it
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close " + file.getName() + ": " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Reads the log through a heap buffer refilled with positional reads, so
+     * sequential reads of small records don't each cost a system call.
+     */
+    private static final class LogReader {
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+        private long bufferStart = 0;
+
+        LogReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        long size() {
+            return size;
+        }
+
+        /**
+         * Gets a range of the file. The returned buffer is only valid until the next read.
+         *
+         * @return A buffer holding exactly the range, or null if it runs past the end of the file
+         */
+        ByteBuffer read(long position, int length) throws IOException {
+            if (position < 0 || length < 0 || position + length > size) {
+                return null;
+            }
+            if (position < bufferStart || position + length > bufferStart + buffer.limit()) {
+                if (length > buffer.capacity()) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - position));
+                bufferStart = position;
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        buffer.limit(0);
+                        throw new IOException("Unexpected end of player data file");
+                    }
+                }
+                buffer.flip();
+            }
+            ByteBuffer range = buffer.duplicate();
+            int offset = (int) (position - bufferStart);
+            range.position(offset).limit(offset + length);
+            return range.slice();
+        }
+
+        /**
+         * Feeds a range of the file to a checksum a buffer at a time, so a damaged
+         * length field never makes it allocate a huge buffer.
+         */
+        void update(CRC32 crc, long position, long length) throws IOException {
+            while (length > 0) {
+                int chunk = (int) Math.min(length, BUFFER_SIZE);
+                crc.update(read(position, chunk));
+                position += chunk;
+                length -= chunk;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(FileChannel target, Map<UUID, Long> positions) throws IOException;
+    }
+
+    /**
+     * Writes the buffered bytes out once they reach 1 MB, so huge datasets
+     * don't need one giant buffer.
+     */
+    private static void flushChunk(FileChannel target, ByteArrayOutputStream bytes) throws IOException {
+        if (bytes.size() >= 1 << 20) {
+            writeFully(target, ByteBuffer.wrap(bytes.toByteArray()));
+            bytes.reset();
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of player data file");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, UUID playerId, Map<String, Map<String, Object>> maps)
+            throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(64);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeLong(playerId.getMostSignificantBits());
+        payload.writeLong(playerId.getLeastSignificantBits());
+        payload.writeInt(maps.size());
+        for (Map.Entry<String, Map<String, Object>> mapEntry : maps.entrySet()) {
+            writeString(payload, mapEntry.getKey());
+            payload.writeInt(mapEntry.getValue().size());
+            for (Map.Entry<String, Object> stat : mapEntry.getValue().entrySet()) {
+                writeString(payload, stat.getKey());
+                writeValue(payload, stat.getValue());
+            }
+        }
+        payload.flush();
+
+        byte[] record = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.write(record);
+    }
+
+    private static Map<String, Map<String, Object>> readMaps(ByteBuffer record) {
+        int mapCount = record.getInt();
+        Map<String, Map<String, Object>> maps = new HashMap<>(Math.max(4, mapCount * 2));
+        for (int i = 0; i < mapCount; i++) {
+            String mapName = readString(record);
+            int statCount = record.getInt();
+            Map<String, Object> stats = new HashMap<>(Math.max(4, statCount * 2));
+            for (int j = 0; j < statCount; j++) {
+                String key = readString(record);
+                stats.put(key, readValue(record));
+            }
+            maps.put(mapName, stats);
+        }
+        return maps;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TYPE_INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            out.writeByte(TYPE_STRING);
+            writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_INT:
+                return buffer.getInt();
+            case TYPE_LONG:
+                return buffer.getLong();
+            case TYPE_DOUBLE:
+                return buffer.getDouble();
+            case TYPE_FLOAT:
+                return buffer.getFloat();
+            case TYPE_BOOLEAN:
+                return buffer.get() != 0;
+            case TYPE_STRING:
+                return readString(buffer);
+            default:
+                throw new IllegalStateException("Unknown stat type " + type);
+        }
+    }
+}
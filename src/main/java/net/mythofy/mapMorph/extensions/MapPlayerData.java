@@ -1,21 +1,30 @@
 package net.mythofy.mapMorph.extensions;
     
 import net.mythofy.mapMorph.MapMorph;
+import net.mythofy.mapMorph.metrics.MetricsRegistry;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -23,12 +32,26 @@ import java.util.stream.Collectors;
  * This is a premium feature that allows plugins to store and retrieve
  * custom data for players on specific maps.
  */
-public class MapPlayerData {
+public class MapPlayerData implements Listener {
 
     private final MapMorph plugin;
-    private final Map<UUID, Map<String, Map<String, Object>>> playerData = new ConcurrentHashMap<>();
+    private final PlayerStatTable stats = new PlayerStatTable();
+    // Players changed since the last save
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+    // Map name to stat key to leaderboard, kept up to date as stats change
+    private final Map<String, Map<String, StatLeaderboard>> leaderboards = new ConcurrentHashMap<>();
+    private PlayerDataStore store;
     private boolean dataLoaded = false;
     private BukkitTask autoSaveTask;
+    private BukkitTask evictionTask;
+    private final ReentrantLock saveLock = new ReentrantLock();
+    // Players being loaded in the background for a main-thread caller
+    private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+    // Writes made on the main thread while their player was loading, in call order (main thread only)
+    private final Map<UUID, List<Runnable>> queuedWrites = new HashMap<>();
+    // Duration and size of the last save that wrote anything
+    private volatile long lastSaveMillis = 0;
+    private volatile long lastSaveBytes = 0;
     
     /**
      * Creates a new map player data manager.
@@ -38,6 +61,7 @@ public class MapPlayerData {
     public MapPlayerData(MapMorph plugin) {
         this.plugin = plugin;
         loadData();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
 
     /**
@@ -62,29 +86,65 @@ public class MapPlayerData {
             }
             
             // Clear existing data before loading
-            playerData.clear();
+            cancelEvictionTask();
+            stats.clear();
+            dirtyPlayers.clear();
+            leaderboards.clear();
+            if (store != null) {
+                store.close();
+            }
             
             switch (storageMethod) {
                 case "yaml":
-                    loadFromYaml();
+                    store = createYamlStore();
+                    break;
+                case "binary":
+                    store = createBinaryStore();
                     break;
                 case "mysql":
-                    loadFromMySQL();
+                    ConfigurationSection mysqlConfig = plugin.getConfig().getConfigurationSection("player_data.mysql");
+                    if (mysqlConfig == null) {
+                        mysqlConfig = plugin.getConfig().createSection("player_data.mysql");
+                    }
+                    store = new MySqlPlayerDataStore(mysqlConfig, plugin.getLogger(), stats::get);
                     break;
                 case "sqlite":
-                    loadFromSQLite();
+                    store = new SqlitePlayerDataStore(new File(dataFolder, "data.db"), plugin.getLogger(),
+                            plugin.getConfig().getString("player_data.sqlite.table-prefix", "mm_"));
                     break;
                 default:
                     plugin.getLogger().warning("Unknown storage method: " + storageMethod + ", defaulting to YAML");
-                    loadFromYaml();
+                    store = createYamlStore();
                     break;
             }
             
+            if (store.isLazy()) {
+                // Players are loaded as they join; load anyone already online (e.g. after a reload)
+                List<UUID> online = new ArrayList<>();
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    online.add(player.getUniqueId());
+                }
+                if (!online.isEmpty()) {
+                    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> online.forEach(this::ensureLoaded));
+                }
+                buildLeaderboardIndex(store);
+                setupEvictionTask();
+            } else {
+                for (Map.Entry<UUID, Map<String, Map<String, Object>>> entry : store.loadAll().entrySet()) {
+                    stats.putPlayerIfAbsent(entry.getKey(), entry.getValue());
+                    indexPlayer(entry.getKey(), entry.getValue());
+                }
+            }
+            
             // Set up auto-save task if enabled
             setupAutoSaveTask();
             
             dataLoaded = true;
-            plugin.getLogger().info("Loaded map-specific player data for " + playerData.size() + " players using " + storageMethod);
+            if (store.isLazy()) {
+                plugin.getLogger().info("Using " + storageMethod + " storage for map-specific player data (players load on join)");
+            } else {
+                plugin.getLogger().info("Loaded map-specific player data for " + stats.size() + " players using " + storageMethod);
+            }
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to load player data: " + e.getMessage());
             e.printStackTrace();
@@ -128,177 +188,407 @@ public class MapPlayerData {
     }
     
     /**
-     * Loads player data from YAML configuration
+     * Sets up the task that unloads players who have been offline and
+     * untouched for a while. Only lazy stores can load them back.
      */
-    private void loadFromYaml() {
-        File playerDataFile = new File(plugin.getDataFolder(), "player_data/data.yml");
-        if (!playerDataFile.exists()) {
-            plugin.getLogger().info("Player data file doesn't exist yet, creating a new one");
+    private void setupEvictionTask() {
+        long idleMinutes = plugin.getConfig().getLong("player_data.idle-eviction-minutes", 30);
+        if (idleMinutes <= 0) {
             return;
         }
+        long idleMillis = idleMinutes * 60L * 1000L;
+        evictionTask = Bukkit.getScheduler().runTaskTimerAsynchronously(
+            plugin,
+            () -> {
+                try {
+                    evictIdlePlayers(idleMillis);
+                } catch (Exception e) {
+                    plugin.getLogger().severe("Error in player data eviction task: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            },
+            20L * 60L,
+            20L * 60L
+        );
+    }
+    
+    private void cancelEvictionTask() {
+        if (evictionTask != null) {
+            evictionTask.cancel();
+            evictionTask = null;
+        }
+    }
+    
+    /**
+     * Unloads offline players that haven't been read or written for the given time.
+     * Their changes are saved first, and their leaderboard entries stay in place
+     * so rankings still cover them.
+     */
+    private void evictIdlePlayers(long idleMillis) {
+        if (!dataLoaded || store == null || !store.isLazy()) return;
         
+        saveLock.lock();
         try {
-            YamlConfiguration dataConfig = YamlConfiguration.loadConfiguration(playerDataFile);
-            ConfigurationSection dataSection = dataConfig.getConfigurationSection("player_data");
+            saveChanges();
+            // Settle pending leaderboard changes while the values are still in memory
+            for (Map<String, StatLeaderboard> mapBoards : leaderboards.values()) {
+                for (StatLeaderboard board : mapBoards.values()) {
+                    board.refresh();
+                }
+            }
             
-            if (dataSection != null) {
-                for (String playerIdStr : dataSection.getKeys(false)) {
-                    try {
-                        UUID playerId = UUID.fromString(playerIdStr);
-                        ConfigurationSection playerSection = dataSection.getConfigurationSection(playerIdStr);
-                        if (playerSection != null) {
-                            Map<String, Map<String, Object>> mapData = new HashMap<>();
-                            
-                            for (String mapName : playerSection.getKeys(false)) {
-                                ConfigurationSection mapSection = playerSection.getConfigurationSection(mapName);
-                                if (mapSection != null) {
-                                    Map<String, Object> stats = new HashMap<>();
-                                    for (String statKey : mapSection.getKeys(false)) {
-                                        stats.put(statKey, mapSection.get(statKey));
-                                    }
-                                    mapData.put(mapName, stats);
-                                }
-                            }
-                            
-                            playerData.put(playerId, mapData);
-                        }
-                    } catch (IllegalArgumentException e) {
-                        plugin.getLogger().warning("Invalid UUID in player data: " + playerIdStr);
-                    }
+            long idleSince = System.currentTimeMillis() - idleMillis;
+            int evicted = 0;
+            for (UUID playerId : new ArrayList<>(stats.players())) {
+                if (Bukkit.getPlayer(playerId) != null) {
+                    continue;
+                }
+                // Players changed since the save above, or whose changes the store
+                // hasn't written yet, are kept until the next one
+                if (stats.evict(playerId, idleSince,
+                        id -> !dirtyPlayers.contains(id) && !store.hasPendingChanges(id))) {
+                    evicted++;
                 }
             }
-        } catch (Exception e) {
-            plugin.getLogger().severe("Error loading player data: " + e.getMessage());
-            e.printStackTrace();
+            if (evicted > 0) {
+                plugin.getLogger().info("Unloaded map-specific player data for " + evicted + " idle players ("
+                        + stats.size() + " still loaded)");
+            }
+        } finally {
+            saveLock.unlock();
         }
     }
     
     /**
-     * Loads player data from MySQL database
+     * Fills the leaderboards from every stored player in the background, so
+     * rankings of lazy stores aren't limited to players loaded since startup.
      */
-    private void loadFromMySQL() {
-        // MySQL implementation would go here
-        // For now, we'll just log that it's not implemented
-        plugin.getLogger().warning("MySQL storage not yet implemented, falling back to YAML");
-        loadFromYaml();
+    private void buildLeaderboardIndex(PlayerDataStore indexedStore) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                indexedStore.forEachStat((playerId, mapName, statKey, value) -> {
+                    if (store != indexedStore) {
+                        throw new IllegalStateException("Player data was reloaded");
+                    }
+                    // Loaded players are indexed from memory, which may be newer
+                    if (!stats.contains(playerId)) {
+                        StatLeaderboard board = leaderboardFor(mapName, statKey);
+                        board.update(playerId, value);
+                        if (stats.contains(playerId)) {
+                            // Loaded meanwhile; re-read the in-memory value
+                            board.markChanged(playerId);
+                        }
+                    }
+                });
+            } catch (IllegalStateException e) {
+                // Reloaded while indexing; the new store builds its own index
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to build player data leaderboards: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+    
+    private PlayerDataStore createYamlStore() {
+        return new YamlPlayerDataStore(new File(plugin.getDataFolder(), "player_data/data.yml"), plugin.getLogger());
     }
     
     /**
-     * Loads player data from SQLite database
+     * Creates the binary store, migrating {@code data.yml} into it the first time it is used.
      */
-    private void loadFromSQLite() {
-        // SQLite implementation would go here
-        // For now, we'll just log that it's not implemented
-        plugin.getLogger().warning("SQLite storage not yet implemented, falling back to YAML");
-        loadFromYaml();
+    private PlayerDataStore createBinaryStore() throws IOException {
+        File dataFolder = new File(plugin.getDataFolder(), "player_data");
+        BinaryPlayerDataStore binaryStore = new BinaryPlayerDataStore(
+                new File(dataFolder, "data.bin"),
+                plugin.getLogger(),
+                plugin.getConfig().getDouble("player_data.binary.compact-ratio", 2.0),
+                plugin.getConfig().getLong("player_data.binary.compact-min-bytes", 1048576L));
+        
+        File yamlFile = new File(dataFolder, "data.yml");
+        if (!binaryStore.exists() && yamlFile.exists()) {
+            Map<UUID, Map<String, Map<String, Object>>> migrated = createYamlStore().loadAll();
+            binaryStore.rewrite(migrated);
+            File backup = new File(dataFolder, "data.yml.migrated");
+            if (!yamlFile.renameTo(backup)) {
+                plugin.getLogger().warning("Migrated data.yml but could not rename it to " + backup.getName());
+            }
+            plugin.getLogger().info("Migrated player data for " + migrated.size() + " players from YAML to binary storage");
+        }
+        return binaryStore;
     }
     
     /**
-     * Saves player data to disk.
+     * Saves player data to disk. Incremental backends only write the players
+     * changed since the last save.
+     * <p>
+     * Changed players are copied out of the table first and written from that
+     * snapshot, so stat changes carry on while the store is writing. Saves only
+     * wait for each other. Stores that rewrite everything read the other players
+     * through {@link PlayerStatTable#asMap()}, which copies each player under its
+     * row lock, so the writer never sees a half-applied change.
      */
-    public synchronized void saveData() {
-        if (!dataLoaded) return;
-        
-        // Determine storage method from config
-        String storageMethod = plugin.getConfig().getString("player_data.storage-method", "yaml").toLowerCase();
+    public void saveData() {
+        if (!dataLoaded || store == null) return;
         
+        saveLock.lock();
         try {
-            switch (storageMethod) {
-                case "yaml":
-                    saveToYaml();
-                    break;
-                case "mysql":
-                    saveToMySQL();
-                    break;
-                case "sqlite":
-                    saveToSQLite();
-                    break;
-                default:
-                    plugin.getLogger().warning("Unknown storage method: " + storageMethod + ", defaulting to YAML");
-                    saveToYaml();
-                    break;
+            saveChanges();
+        } finally {
+            saveLock.unlock();
+        }
+    }
+    
+    private void saveChanges() {
+        if (store.tracksChanges()) {
+            // The store queued every change itself; just flush it
+            List<UUID> changedPlayers = new ArrayList<>(dirtyPlayers);
+            dirtyPlayers.removeAll(changedPlayers);
+            try {
+                long started = System.nanoTime();
+                store.save(Collections.emptyMap(), stats.asMap());
+                if (!changedPlayers.isEmpty()) {
+                    recordSave(started, 0);
+                    plugin.getLogger().info("Flushed map-specific player data for " + changedPlayers.size()
+                            + " changed players in " + lastSaveMillis + "ms");
+                }
+            } catch (Exception e) {
+                // Keep the players dirty so they aren't evicted before the retry
+                dirtyPlayers.addAll(changedPlayers);
+                plugin.getLogger().severe("Failed to save player data: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
+        
+        // Copy the players changed since the last save
+        Map<UUID, Map<String, Map<String, Object>>> changed = new HashMap<>();
+        for (UUID playerId : dirtyPlayers) {
+            dirtyPlayers.remove(playerId);
+            Map<String, Map<String, Object>> copy = stats.getPlayer(playerId);
+            // No row means nothing was written; an empty map would wipe their stored data
+            if (copy != null) {
+                changed.put(playerId, copy);
             }
+        }
+        if (changed.isEmpty()) return;
+        
+        try {
+            long started = System.nanoTime();
+            long bytesBefore = store.getBytesWritten();
+            store.save(changed, stats.asMap());
+            recordSave(started, store.getBytesWritten() - bytesBefore);
             
-            plugin.getLogger().info("Saved map-specific player data for " + playerData.size() + " players using " + storageMethod);
+            plugin.getLogger().info("Saved map-specific player data for " + changed.size() + " changed players ("
+                    + stats.size() + " total, " + lastSaveBytes + " bytes in " + lastSaveMillis + "ms)");
         } catch (Exception e) {
+            // Keep the players dirty so the next save retries them
+            dirtyPlayers.addAll(changed.keySet());
             plugin.getLogger().severe("Failed to save player data: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    private void recordSave(long startedNanos, long bytes) {
+        lastSaveMillis = (System.nanoTime() - startedNanos) / 1_000_000L;
+        lastSaveBytes = bytes;
+        plugin.getMetricsRegistry().record(MetricsRegistry.PLAYER_DATA_SAVE_TIME, lastSaveMillis);
+    }
+    
     /**
-     * Saves player data to YAML configuration
+     * Gets how long the last save took.
+     * 
+     * @return The duration in milliseconds, or 0 if nothing has been saved yet
      */
-    private void saveToYaml() {
-        File dataFolder = new File(plugin.getDataFolder(), "player_data");
-        if (!dataFolder.exists() && !dataFolder.mkdirs()) {
-            plugin.getLogger().warning("Failed to create player_data directory");
+    public long getLastSaveMillis() {
+        return lastSaveMillis;
+    }
+    
+    /**
+     * Gets how many bytes the last save wrote to disk. Database backends
+     * report 0.
+     * 
+     * @return The number of bytes written by the last save
+     */
+    public long getLastSaveBytes() {
+        return lastSaveBytes;
+    }
+    
+    /**
+     * Loads a player's data from lazy stores before they finish logging in,
+     * so stat lookups on the main thread don't hit the database.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            ensureLoaded(event.getUniqueId());
+        }
+    }
+    
+    /**
+     * Loads a player's data from a lazy store if it isn't in memory yet, and
+     * marks it as recently used so it isn't evicted. The main thread never
+     * waits for the store: it starts a background load and gets false.
+     * 
+     * @param playerId The UUID of the player
+     * @return false if the player isn't loaded (yet)
+     */
+    private boolean ensureLoaded(UUID playerId) {
+        if (isLoaded(playerId)) {
+            return true;
+        }
+        if (Bukkit.isPrimaryThread()) {
+            loadAsync(playerId);
+            return false;
+        }
+        return loadNow(playerId);
+    }
+    
+    /**
+     * Checks whether a player's data is in memory (always true for stores that
+     * load everyone up front), marking it as recently used.
+     */
+    private boolean isLoaded(UUID playerId) {
+        if (stats.touch(playerId, System.currentTimeMillis())) {
+            return true;
+        }
+        PlayerDataStore currentStore = store;
+        return currentStore == null || !currentStore.isLazy();
+    }
+    
+    /**
+     * Loads a player in the background, then runs any writes queued for them
+     * on the main thread. Does nothing if a load is already running.
+     */
+    private void loadAsync(UUID playerId) {
+        if (!loading.add(playerId)) {
             return;
         }
-        
-        File playerDataFile = new File(dataFolder, "data.yml");
-        YamlConfiguration dataConfig = new YamlConfiguration();
-        
-        // Create configuration sections for player data
-        for (Map.Entry<UUID, Map<String, Map<String, Object>>> playerEntry : playerData.entrySet()) {
-            String playerPath = "player_data." + playerEntry.getKey().toString();
-            
-            for (Map.Entry<String, Map<String, Object>> mapEntry : playerEntry.getValue().entrySet()) {
-                String mapPath = playerPath + "." + mapEntry.getKey();
-                
-                for (Map.Entry<String, Object> statEntry : mapEntry.getValue().entrySet()) {
-                    String statPath = mapPath + "." + statEntry.getKey();
-                    dataConfig.set(statPath, statEntry.getValue());
-                }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            boolean loaded = loadNow(playerId);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                loading.remove(playerId);
+                runQueuedWrites(playerId, loaded);
+            });
+        });
+    }
+    
+    /**
+     * Queues a main-thread write for a player who isn't loaded yet, or behind
+     * earlier queued writes, and starts loading them.
+     * 
+     * @return true if the write was queued, false if it should run now
+     */
+    private boolean queueUntilLoaded(UUID playerId, Runnable write) {
+        if (!Bukkit.isPrimaryThread()) {
+            return false;
+        }
+        List<Runnable> queued = queuedWrites.get(playerId);
+        if (queued == null) {
+            if (isLoaded(playerId)) {
+                return false;
             }
+            queued = new ArrayList<>();
+            queuedWrites.put(playerId, queued);
+            loadAsync(playerId);
+        }
+        queued.add(write);
+        return true;
+    }
+    
+    private void runQueuedWrites(UUID playerId, boolean loaded) {
+        List<Runnable> queued = queuedWrites.remove(playerId);
+        if (queued == null) {
+            return;
+        }
+        if (!loaded) {
+            plugin.getLogger().severe("Dropped " + queued.size() + " stat changes for " + playerId
+                    + " because their player data could not be loaded");
+            return;
+        }
+        for (Runnable write : queued) {
+            try {
+                write.run();
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to apply queued stat change for " + playerId + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Reads a player from a lazy store into memory, blocking on the store.
+     * 
+     * @return false if the store failed to load the player
+     */
+    private boolean loadNow(UUID playerId) {
+        if (stats.touch(playerId, System.currentTimeMillis())) {
+            return true;
+        }
+        PlayerDataStore currentStore = store;
+        if (currentStore == null || !currentStore.isLazy()) {
+            return true;
         }
         
         try {
-            dataConfig.save(playerDataFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save player data: " + e.getMessage());
+            Map<String, Map<String, Object>> loaded = currentStore.loadPlayer(playerId);
+            if (stats.putPlayerIfAbsent(playerId, loaded)) {
+                indexPlayer(playerId, stats.getPlayer(playerId));
+            }
+            return true;
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to load player data for " + playerId + ": " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
     }
     
     /**
-     * Saves player data to MySQL database
+     * Makes sure a player has a row to write to. Writes must not create an
+     * empty row for a player whose stored data couldn't be loaded, or the
+     * next save would overwrite it.
      */
-    private void saveToMySQL() {
-        // MySQL implementation would go here
-        // For now, we'll just log that it's not implemented
-        plugin.getLogger().warning("MySQL storage not yet implemented, cannot save to MySQL");
+    private void loadForWrite(UUID playerId) {
+        if (!ensureLoaded(playerId)) {
+            throw new IllegalStateException("Player data for " + playerId + " could not be loaded");
+        }
+        stats.putPlayerIfAbsent(playerId, Collections.emptyMap());
     }
     
     /**
-     * Saves player data to SQLite database
+     * Runs a write with the player marked dirty, so the eviction task leaves
+     * them alone meanwhile. If the write throws, for example because their
+     * data couldn't be loaded, the mark is taken back unless it was already set.
      */
-    private void saveToSQLite() {
-        // SQLite implementation would go here
-        // For now, we'll just log that it's not implemented
-        plugin.getLogger().warning("SQLite storage not yet implemented, cannot save to SQLite");
+    private <T> T writeDirty(UUID playerId, Supplier<T> write) {
+        boolean newlyDirty = dirtyPlayers.add(playerId);
+        try {
+            return write.get();
+        } catch (RuntimeException e) {
+            if (newlyDirty) {
+                dirtyPlayers.remove(playerId);
+            }
+            throw e;
+        }
     }
     
     /**
-     * Gets a specific stat for a player on a specific map.
+     * Gets a specific stat for a player on a specific map. On the main thread,
+     * an offline player who isn't in memory reads as unset while their data
+     * loads in the background.
      * 
      * @param playerId The UUID of the player
      * @param mapName The name of the map
      * @param statKey The key of the stat to retrieve
-     * @return The value of the stat, or null if not set
+     * @return The value of the stat, or null if not set (or not loaded yet)
      */
     public Object getStat(UUID playerId, String mapName, String statKey) {
-        Map<String, Map<String, Object>> playerMaps = playerData.get(playerId);
-        if (playerMaps == null) return null;
-        
-        Map<String, Object> mapStats = playerMaps.get(mapName);
-        if (mapStats == null) return null;
-        
-        return mapStats.get(statKey);
+        ensureLoaded(playerId);
+        return stats.get(playerId, mapName, statKey);
     }
     
     /**
-     * Sets a specific stat for a player on a specific map.
+     * Sets a specific stat for a player on a specific map. On the main thread,
+     * the write is queued if the player's data is still loading.
      * 
      * @param playerId The UUID of the player
      * @param mapName The name of the map
@@ -306,14 +596,16 @@ public class MapPlayerData {
      * @param value The value to set
      */
     public void setStat(UUID playerId, String mapName, String statKey, Object value) {
-        // Get or create player maps
-        Map<String, Map<String, Object>> playerMaps = playerData.computeIfAbsent(playerId, k -> new HashMap<>());
-        
-        // Get or create map stats
-        Map<String, Object> mapStats = playerMaps.computeIfAbsent(mapName, k -> new HashMap<>());
-        
-        // Set the stat
-        mapStats.put(statKey, value);
+        if (queueUntilLoaded(playerId, () -> setStat(playerId, mapName, statKey, value))) {
+            return;
+        }
+        writeDirty(playerId, () -> {
+            do {
+                loadForWrite(playerId);
+            } while (!stats.set(playerId, mapName, statKey, value));
+            return null;
+        });
+        statChanged(playerId, mapName, statKey);
     }
     
     /**
@@ -321,21 +613,20 @@ public class MapPlayerData {
      * 
      * @param playerId The UUID of the player
      * @param mapName The name of the map
-     * @return A map of all stats for the player on the map, or an empty map if none
+     * @return A map of all stats for the player on the map, or an empty map if none (or not loaded yet)
      */
     public Map<String, Object> getAllStats(UUID playerId, String mapName) {
-        Map<String, Map<String, Object>> playerMaps = playerData.get(playerId);
-        if (playerMaps == null) return new HashMap<>();
-        
-        Map<String, Object> mapStats = playerMaps.get(mapName);
-        if (mapStats == null) return new HashMap<>();
-        
-        return new HashMap<>(mapStats);
+        ensureLoaded(playerId);
+        return stats.getMap(playerId, mapName);
     }
     
     /**
      * Increments a numeric stat for a player on a specific map.
      * If the stat doesn't exist, it will be created with a value of 1.
+     * Only the player's own row is locked, so increments for different
+     * players don't contend. Unlike the other writes this can't be queued,
+     * since callers need the new value: on the main thread, a player who isn't
+     * loaded yet is loaded inline, after which their queued writes run first.
      * 
      * @param playerId The UUID of the player
      * @param mapName The name of the map
@@ -343,72 +634,76 @@ public class MapPlayerData {
      * @return The new value of the stat
      * @throws IllegalArgumentException if the existing stat is not a number
      */
-    public synchronized Number incrementStat(UUID playerId, String mapName, String statKey) {
-        Object currentValue = getStat(playerId, mapName, statKey);
-        
-        if (currentValue == null) {
-            setStat(playerId, mapName, statKey, 1);
-            return 1;
+    public Number incrementStat(UUID playerId, String mapName, String statKey) {
+        if (Bukkit.isPrimaryThread() && (queuedWrites.containsKey(playerId) || !isLoaded(playerId))) {
+            runQueuedWrites(playerId, loadNow(playerId));
         }
-        
-        if (!(currentValue instanceof Number)) {
-            throw new IllegalArgumentException("Cannot increment non-numeric stat: " + statKey);
-        }
-        
-        Number number = (Number) currentValue;
         Number newValue;
-        
         try {
-            if (number instanceof Integer) {
-                // Check for integer overflow
-                int intValue = (Integer) number;
-                if (intValue == Integer.MAX_VALUE) {
-                    newValue = intValue + 1L; // Convert to long if at max integer
-                } else {
-                    newValue = intValue + 1;
-                }
-            } else if (number instanceof Long) {
-                // Check for long overflow
-                long longValue = (Long) number;
-                if (longValue == Long.MAX_VALUE) {
-                    throw new ArithmeticException("Long value too large to increment");
-                }
-                newValue = longValue + 1L;
-            } else if (number instanceof Double) {
-                double doubleValue = (Double) number;
-                if (Double.isInfinite(doubleValue) || Double.isNaN(doubleValue)) {
-                    throw new ArithmeticException("Invalid double value");
-                }
-                newValue = doubleValue + 1.0;
-            } else if (number instanceof Float) {
-                float floatValue = (Float) number;
-                if (Float.isInfinite(floatValue) || Float.isNaN(floatValue)) {
-                    throw new ArithmeticException("Invalid float value");
-                }
-                newValue = floatValue + 1.0f;
-            } else {
-                // Default to double for other numeric types
-                newValue = number.doubleValue() + 1.0;
-            }
-            
-            setStat(playerId, mapName, statKey, newValue);
-            return newValue;
+            newValue = writeDirty(playerId, () -> {
+                Number incremented;
+                do {
+                    loadForWrite(playerId);
+                    incremented = stats.increment(playerId, mapName, statKey);
+                } while (incremented == null);
+                return incremented;
+            });
         } catch (ArithmeticException e) {
             plugin.getLogger().warning("Error incrementing stat " + statKey + ": " + e.getMessage());
             throw new IllegalStateException("Failed to increment stat: " + e.getMessage(), e);
         }
+        statChanged(playerId, mapName, statKey);
+        return newValue;
     }
     
     /**
-     * Resets all stats for a player on a specific map.
+     * Marks a changed stat dirty for the next save, the leaderboard and the store.
+     * Nothing here locks, so concurrent increments stay contention-free.
+     */
+    private void statChanged(UUID playerId, String mapName, String statKey) {
+        dirtyPlayers.add(playerId);
+        leaderboardFor(mapName, statKey).markChanged(playerId);
+        PlayerDataStore currentStore = store;
+        if (currentStore != null) {
+            currentStore.statChanged(playerId, mapName, statKey);
+        }
+    }
+    
+    /**
+     * Resets all stats for a player on a specific map. On the main thread,
+     * the reset is queued if the player's data is still loading.
      * 
      * @param playerId The UUID of the player
      * @param mapName The name of the map
      */
     public void resetStats(UUID playerId, String mapName) {
-        Map<String, Map<String, Object>> playerMaps = playerData.get(playerId);
-        if (playerMaps != null) {
-            playerMaps.remove(mapName);
+        if (queueUntilLoaded(playerId, () -> resetStats(playerId, mapName))) {
+            return;
+        }
+        Map<String, Object> removed = writeDirty(playerId, () -> {
+            Map<String, Object> removedStats;
+            do {
+                loadForWrite(playerId);
+                removedStats = stats.removeMap(playerId, mapName);
+                // Null means either nothing to reset or an eviction in between
+            } while (removedStats == null && !stats.contains(playerId));
+            return removedStats;
+        });
+        if (removed != null) {
+            Map<String, StatLeaderboard> mapBoards = leaderboards.get(mapName);
+            if (mapBoards != null) {
+                for (String statKey : removed.keySet()) {
+                    StatLeaderboard board = mapBoards.get(statKey);
+                    if (board != null) {
+                        board.remove(playerId);
+                    }
+                }
+            }
+            
+            PlayerDataStore currentStore = store;
+            if (currentStore != null) {
+                currentStore.mapReset(playerId, mapName);
+            }
         }
     }
     
@@ -422,19 +717,17 @@ public class MapPlayerData {
      * @throws IllegalArgumentException if the stat is not comparable
      */
     public Map<UUID, Object> getTopPlayers(String mapName, String statKey, int limit) {
-        Map<UUID, Object> result = new HashMap<>();
-        
-        // First collect all the stats
-        for (Map.Entry<UUID, Map<String, Map<String, Object>>> playerEntry : playerData.entrySet()) {
-            UUID playerId = playerEntry.getKey();
-            Map<String, Map<String, Object>> playerMaps = playerEntry.getValue();
-            Map<String, Object> mapStats = playerMaps.get(mapName);
-            
-            if (mapStats != null && mapStats.containsKey(statKey)) {
-                result.put(playerId, mapStats.get(statKey));
-            }
+        StatLeaderboard board = getLeaderboardIndex(mapName, statKey);
+        if (board == null) {
+            return new LinkedHashMap<>();
+        }
+        if (board.isComplete()) {
+            return board.top(limit);
         }
         
+        // Some values aren't numbers, so sort everything
+        Map<UUID, Object> result = stats.getColumn(mapName, statKey);
+        
         // Sort the results by value in descending order
         // This assumes the values are comparable (e.g., numbers)
         return result.entrySet().stream()
@@ -465,6 +758,14 @@ public class MapPlayerData {
      * @return The player's rank (starting from 1), or 0 if not ranked
      */
     public int getPlayerRank(UUID playerId, String mapName, String statKey) {
+        StatLeaderboard board = getLeaderboardIndex(mapName, statKey);
+        if (board == null) {
+            return 0;
+        }
+        if (board.isComplete()) {
+            return board.rank(playerId);
+        }
+        
         // Get all players with this stat on this map
         Map<UUID, Object> topPlayers = getTopPlayers(mapName, statKey, Integer.MAX_VALUE);
         
@@ -480,6 +781,27 @@ public class MapPlayerData {
         return 0; // Not ranked
     }
     
+    /**
+     * Adds all of a player's stats to the leaderboards.
+     */
+    private void indexPlayer(UUID playerId, Map<String, Map<String, Object>> playerMaps) {
+        for (Map.Entry<String, Map<String, Object>> mapEntry : playerMaps.entrySet()) {
+            for (Map.Entry<String, Object> statEntry : mapEntry.getValue().entrySet()) {
+                leaderboardFor(mapEntry.getKey(), statEntry.getKey()).update(playerId, statEntry.getValue());
+            }
+        }
+    }
+    
+    private StatLeaderboard leaderboardFor(String mapName, String statKey) {
+        return leaderboards.computeIfAbsent(mapName, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(statKey, k -> new StatLeaderboard(id -> stats.get(id, mapName, statKey)));
+    }
+    
+    private StatLeaderboard getLeaderboardIndex(String mapName, String statKey) {
+        Map<String, StatLeaderboard> mapBoards = leaderboards.get(mapName);
+        return mapBoards != null ? mapBoards.get(statKey) : null;
+    }
+    
     /**
      * Gets a formatted leaderboard for a specific stat on a specific map.
      * 
@@ -510,6 +832,15 @@ public class MapPlayerData {
         return leaderboard;
     }
     
+    /**
+     * Gets the storage backend currently in use.
+     * 
+     * @return The store, or null if player data failed to load
+     */
+    public PlayerDataStore getStore() {
+        return store;
+    }
+    
     /**
      * Cleans up resources and saves data when the plugin is being disabled.
      * This method should be called from the plugin's onDisable method.
@@ -520,9 +851,13 @@ public class MapPlayerData {
             autoSaveTask.cancel();
             autoSaveTask = null;
         }
+        cancelEvictionTask();
         
         // Save all player data
         saveData();
+        if (store != null) {
+            store.close();
+        }
         
         plugin.getLogger().info("MapPlayerData has been properly shut down");
     }
@@ -0,0 +1,549 @@
+package net.mythofy.mapMorph.extensions;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Stores player data in a MySQL database shared between servers.
+ * <p>
+ * Connections come from a HikariCP pool. Stat changes are never written on the
+ * calling thread: they go into a write-behind queue keyed by player, map and stat,
+ * so repeated {@code setStat}/{@code incrementStat} calls for the same key
+ * collapse into one row. A dedicated flusher thread drains the queue every
+ * {@code flush-interval-ms}, reads each stat's current value and writes them as
+ * multi-row {@code INSERT ... ON DUPLICATE KEY UPDATE} statements. Players are
+ * loaded on join.
+ */
+public class MySqlPlayerDataStore implements PlayerDataStore {
+
+    /**
+     * Reads a stat's current value from memory.
+     */
+    @FunctionalInterface
+    public interface ValueSource {
+        Object get(UUID playerId, String mapName, String statKey);
+    }
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_INT = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_DOUBLE = 3;
+    private static final int TYPE_FLOAT = 4;
+    private static final int TYPE_BOOLEAN = 5;
+    private static final int TYPE_STRING = 6;
+
+    private final Logger logger;
+    private final String table;
+    private final int batchSize;
+    private final HikariDataSource dataSource;
+    private final ScheduledExecutorService flusher;
+    private final ValueSource values;
+
+    private final Set<StatKey> pendingStats = ConcurrentHashMap.newKeySet();
+    private final Set<MapKey> pendingResets = ConcurrentHashMap.newKeySet();
+    // Players whose drained changes the running flush hasn't written yet
+    private final Set<UUID> flushingPlayers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile long lastFlushMillis = 0;
+    private volatile long maxFlushMillis = 0;
+    private volatile double averageFlushMillis = 0;
+
+    /**
+     * Creates a MySQL store, opens its connection pool and starts the flusher.
+     *
+     * @param config The {@code player_data.mysql} config section
+     * @param logger The logger for warnings
+     * @param values Where queued stats read their values from when they are flushed
+     * @throws IOException if the database cannot be reached
+     */
+    public MySqlPlayerDataStore(ConfigurationSection config, Logger logger, ValueSource values) throws IOException {
+        this(openPool(config), config.getString("table-prefix", "mm_"), config.getInt("batch-size", 500),
+                config.getLong("flush-interval-ms", 1000L), logger, values);
+    }
+
+    /**
+     * Creates a store on an already opened pool and starts the flusher.
+     *
+     * @param dataSource          The connection pool, closed with the store
+     * @param tablePrefix         Prefix of the stats table name
+     * @param batchSize           Rows per multi-row upsert
+     * @param flushIntervalMillis Delay between background flushes
+     * @param logger              The logger for warnings
+     * @param values              Where queued stats read their values from when they are flushed
+     * @throws IOException if the stats table cannot be created
+     */
+    MySqlPlayerDataStore(HikariDataSource dataSource, String tablePrefix, int batchSize, long flushIntervalMillis,
+                         Logger logger, ValueSource values) throws IOException {
+        this.logger = logger;
+        this.values = values;
+        this.table = tablePrefix + "player_stats";
+        this.batchSize = Math.max(1, batchSize);
+        this.dataSource = dataSource;
+
+        try {
+            createTable();
+        } catch (SQLException e) {
+            dataSource.close();
+            throw new IOException("Failed to connect to MySQL: " + e.getMessage(), e);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MapMorph-MySQL-Flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(50L, flushIntervalMillis);
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.warning("Failed to flush player data to MySQL: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static HikariDataSource openPool(ConfigurationSection config) throws IOException {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("MapMorph-MySQL");
+        hikari.setJdbcUrl("jdbc:mysql://" + config.getString("host", "localhost") + ":" + config.getInt("port", 3306)
+                + "/" + config.getString("database", "mapmorph")
+                + "?useSSL=" + config.getBoolean("use-ssl", false) + "&rewriteBatchedStatements=true");
+        hikari.setUsername(config.getString("username", "root"));
+        hikari.setPassword(config.getString("password", ""));
+        hikari.setMaximumPoolSize(Math.max(2, config.getInt("pool.maximum-pool-size", 10)));
+        hikari.setConnectionTimeout(config.getLong("pool.connection-timeout-ms", 5000L));
+        hikari.addDataSourceProperty("cachePrepStmts", "true");
+        hikari.addDataSourceProperty("prepStmtCacheSize", "250");
+
+        try {
+            return new HikariDataSource(hikari);
+        } catch (Exception e) {
+            throw new IOException("Failed to connect to MySQL: " + e.getMessage(), e);
+        }
+    }
+
+    private void createTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "player_uuid CHAR(36) NOT NULL, "
+                    + "map_name VARCHAR(64) NOT NULL, "
+                    + "stat_key VARCHAR(64) NOT NULL, "
+                    + "value_type TINYINT NOT NULL, "
+                    + "stat_value TEXT NULL, "
+                    + "PRIMARY KEY (player_uuid, map_name, stat_key))");
+        }
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public boolean tracksChanges() {
+        return true;
+    }
+
+    @Override
+    public void statChanged(UUID playerId, String mapName, String statKey) {
+        pendingStats.add(new StatKey(playerId, mapName, statKey));
+    }
+
+    @Override
+    public void mapReset(UUID playerId, String mapName) {
+        // Queued stats for the map are superseded by the reset
+        pendingStats.removeIf(key -> key.playerId.equals(playerId) && key.mapName.equals(mapName));
+        pendingResets.add(new MapKey(playerId, mapName));
+    }
+
+    @Override
+    public boolean hasPendingChanges(UUID playerId) {
+        if (flushingPlayers.contains(playerId)) {
+            return true;
+        }
+        for (StatKey key : pendingStats) {
+            if (key.playerId.equals(playerId)) {
+                return true;
+            }
+        }
+        for (MapKey key : pendingResets) {
+            if (key.playerId.equals(playerId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Map<UUID, Map<String, Map<String, Object>>> loadAll() throws IOException {
+        Map<UUID, Map<String, Map<String, Object>>> players = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT player_uuid, map_name, stat_key, value_type, stat_value FROM " + table)) {
+            while (rows.next()) {
+                UUID playerId;
+                try {
+                    playerId = UUID.fromString(rows.getString(1));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Invalid UUID in player data: " + rows.getString(1));
+                    continue;
+                }
+                players.computeIfAbsent(playerId, k -> new HashMap<>())
+                        .computeIfAbsent(rows.getString(2), k -> new HashMap<>())
+                        .put(rows.getString(3), decode(rows.getInt(4), rows.getString(5)));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to load player data from MySQL: " + e.getMessage(), e);
+        }
+        return players;
+    }
+
+    @Override
+    public void forEachStat(StatVisitor visitor) throws IOException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Makes the MySQL driver stream rows instead of buffering the whole table
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rows = statement.executeQuery(
+                    "SELECT player_uuid, map_name, stat_key, value_type, stat_value FROM " + table)) {
+                while (rows.next()) {
+                    UUID playerId;
+                    try {
+                        playerId = UUID.fromString(rows.getString(1));
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    visitor.visit(playerId, rows.getString(2), rows.getString(3), decode(rows.getInt(4), rows.getString(5)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read player data from MySQL: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> loadPlayer(UUID playerId) throws IOException {
+        Map<String, Map<String, Object>> maps = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT map_name, stat_key, value_type, stat_value FROM " + table + " WHERE player_uuid = ?")) {
+            statement.setString(1, playerId.toString());
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    maps.computeIfAbsent(rows.getString(1), k -> new HashMap<>())
+                            .put(rows.getString(2), decode(rows.getInt(3), rows.getString(4)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to load player data from MySQL: " + e.getMessage(), e);
+        }
+        return maps;
+    }
+
+    /**
+     * Flushes the write-behind queue on the flusher thread and waits for it.
+     * The arguments are ignored since changes are queued as they happen.
+     */
+    @Override
+    public void save(Map<UUID, Map<String, Map<String, Object>>> changed,
+                     Map<UUID, Map<String, Map<String, Object>>> all) throws IOException {
+        try {
+            flusher.submit(() -> {
+                flush();
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to flush player data to MySQL: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing player data", e);
+        } catch (RejectedExecutionException e) {
+            throw new IOException("MySQL store is closed", e);
+        }
+    }
+
+    /**
+     * Writes all queued changes. Only ever runs on the flusher thread.
+     */
+    private void flush() throws SQLException {
+        if (pendingStats.isEmpty() && pendingResets.isEmpty()) {
+            return;
+        }
+
+        // Drain resets before stats: a stat set after its map's reset was drained
+        // is then written after the reset, never deleted by it. Each player is
+        // marked as flushing before their key leaves the queue, so they always
+        // report pending changes and are never evicted with a value unwritten.
+        List<MapKey> resets = new ArrayList<>();
+        List<StatKey> keys = new ArrayList<>();
+        List<Object> stats = new ArrayList<>();
+        long start;
+        try {
+            for (MapKey key : pendingResets) {
+                flushingPlayers.add(key.playerId);
+                if (pendingResets.remove(key)) {
+                    resets.add(key);
+                }
+            }
+            for (StatKey key : pendingStats) {
+                flushingPlayers.add(key.playerId);
+                // Dequeue before reading, so a change made after the read queues the key again
+                if (pendingStats.remove(key)) {
+                    keys.add(key);
+                    stats.add(values.get(key.playerId, key.mapName, key.statKey));
+                }
+            }
+
+            start = System.nanoTime();
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    writeResets(connection, resets);
+                    writeStats(connection, keys, stats);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                failedFlushes.incrementAndGet();
+                // Put everything back for the next flush
+                pendingResets.addAll(resets);
+                pendingStats.addAll(keys);
+                throw e;
+            }
+        } finally {
+            flushingPlayers.clear();
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        long flushes = flushCount.incrementAndGet();
+        flushedRows.addAndGet(keys.size() + resets.size());
+        lastFlushMillis = elapsed;
+        maxFlushMillis = Math.max(maxFlushMillis, elapsed);
+        averageFlushMillis += (elapsed - averageFlushMillis) / Math.min(flushes, 100);
+    }
+
+    private void writeResets(Connection connection, List<MapKey> resets) throws SQLException {
+        if (resets.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM " + table + " WHERE player_uuid = ? AND map_name = ?")) {
+            for (MapKey key : resets) {
+                delete.setString(1, key.playerId.toString());
+                delete.setString(2, key.mapName);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+    }
+
+    private void writeStats(Connection connection, List<StatKey> keys, List<Object> stats) throws SQLException {
+        int offset = 0;
+        while (offset < keys.size()) {
+            int rows = Math.min(batchSize, keys.size() - offset);
+            try (PreparedStatement upsert = connection.prepareStatement(upsertSql(rows))) {
+                int index = 1;
+                for (int i = offset; i < offset + rows; i++) {
+                    StatKey key = keys.get(i);
+                    Object value = stats.get(i);
+                    upsert.setString(index++, key.playerId.toString());
+                    upsert.setString(index++, key.mapName);
+                    upsert.setString(index++, key.statKey);
+                    upsert.setInt(index++, typeOf(value));
+                    upsert.setString(index++, value == null ? null : String.valueOf(value));
+                }
+                upsert.executeUpdate();
+            }
+            offset += rows;
+        }
+    }
+
+    private String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (player_uuid, map_name, stat_key, value_type, stat_value) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE value_type = VALUES(value_type), stat_value = VALUES(stat_value)");
+        return sql.toString();
+    }
+
+    @Override
+    public void close() {
+        try {
+            save(null, null);
+        } catch (IOException e) {
+            logger.severe("Failed to flush player data to MySQL on shutdown: " + e.getMessage());
+        }
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("MySQL flusher thread did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dataSource.close();
+    }
+
+    /**
+     * Gets the number of stat changes and resets waiting to be written.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return pendingStats.size() + pendingResets.size();
+    }
+
+    /**
+     * Gets how long the most recent successful flush took.
+     *
+     * @return The flush latency in milliseconds
+     */
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    /**
+     * Gets the average latency of recent flushes (moving average over about 100 flushes).
+     *
+     * @return The average flush latency in milliseconds
+     */
+    public double getAverageFlushMillis() {
+        return averageFlushMillis;
+    }
+
+    public long getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    private static int typeOf(Object value) {
+        if (value == null) return TYPE_NULL;
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) return TYPE_INT;
+        if (value instanceof Long) return TYPE_LONG;
+        if (value instanceof Double) return TYPE_DOUBLE;
+        if (value instanceof Float) return TYPE_FLOAT;
+        if (value instanceof Boolean) return TYPE_BOOLEAN;
+        return TYPE_STRING;
+    }
+
+    private static Object decode(int type, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (type) {
+                case TYPE_INT:
+                    return Integer.parseInt(value);
+                case TYPE_LONG:
+                    return Long.parseLong(value);
+                case TYPE_DOUBLE:
+                    return Double.parseDouble(value);
+                case TYPE_FLOAT:
+                    return Float.parseFloat(value);
+                case TYPE_BOOLEAN:
+                    return Boolean.parseBoolean(value);
+                case TYPE_NULL:
+                    return null;
+                default:
+                    return value;
+            }
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static final class StatKey {
+        private final UUID playerId;
+        private final String mapName;
+        private final String statKey;
+        private final int hash;
+
+        StatKey(UUID playerId, String mapName, String statKey) {
+            this.playerId = playerId;
+            this.mapName = mapName;
+            this.statKey = statKey;
+            this.hash = Objects.hash(playerId, mapName, statKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StatKey)) return false;
+            StatKey other = (StatKey) o;
+            return playerId.equals(other.playerId) && mapName.equals(other.mapName) && statKey.equals(other.statKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class MapKey {
+        private final UUID playerId;
+        private final String mapName;
+
+        MapKey(UUID playerId, String mapName) {
+            this.playerId = playerId;
+            this.mapName = mapName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MapKey)) return false;
+            MapKey other = (MapKey) o;
+            return playerId.equals(other.playerId) && mapName.equals(other.mapName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(playerId, mapName);
+        }
+    }
+}
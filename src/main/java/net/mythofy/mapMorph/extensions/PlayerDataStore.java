@@ -0,0 +1,134 @@
+package net.mythofy.mapMorph.extensions;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Storage backend for {@link MapPlayerData}.
+ * Player data is shaped as player UUID to map name to stat key to value.
+ */
+public interface PlayerDataStore {
+
+    /**
+     * Loads all stored player data.
+     *
+     * @return The stored data, keyed by player UUID
+     * @throws IOException if the data cannot be read
+     */
+    Map<UUID, Map<String, Map<String, Object>>> loadAll() throws IOException;
+
+    /**
+     * Persists player data. Backends that can write incrementally only need to
+     * write {@code changed}; others may rewrite everything from {@code all}.
+     *
+     * @param changed Copies of the players modified since the last save
+     * @param all     All player data currently held in memory
+     * @throws IOException if the data cannot be written
+     */
+    void save(Map<UUID, Map<String, Map<String, Object>>> changed,
+              Map<UUID, Map<String, Map<String, Object>>> all) throws IOException;
+
+    /**
+     * Releases any files or connections held by the store.
+     */
+    void close();
+
+    /**
+     * Whether players should be loaded one at a time with {@link #loadPlayer(UUID)}
+     * (when they join) instead of loading everything at startup.
+     *
+     * @return true if the store loads players lazily
+     */
+    default boolean isLazy() {
+        return false;
+    }
+
+    /**
+     * Loads a single player's data.
+     *
+     * @param playerId The player UUID
+     * @return The player's data, empty if the player has none
+     * @throws IOException if the data cannot be read
+     */
+    default Map<String, Map<String, Object>> loadPlayer(UUID playerId) throws IOException {
+        throw new UnsupportedOperationException("This store only supports loading all players");
+    }
+
+    /**
+     * Receives stored stats one at a time.
+     */
+    @FunctionalInterface
+    interface StatVisitor {
+        void visit(UUID playerId, String mapName, String statKey, Object value);
+    }
+
+    /**
+     * Streams every stored stat, one player's latest data at a time, without keeping
+     * it all in memory. Used to build leaderboards when players load lazily.
+     *
+     * @param visitor Called once per stat
+     * @throws IOException if the data cannot be read
+     */
+    default void forEachStat(StatVisitor visitor) throws IOException {
+        for (Map.Entry<UUID, Map<String, Map<String, Object>>> player : loadAll().entrySet()) {
+            for (Map.Entry<String, Map<String, Object>> map : player.getValue().entrySet()) {
+                for (Map.Entry<String, Object> stat : map.getValue().entrySet()) {
+                    visitor.visit(player.getKey(), map.getKey(), stat.getKey(), stat.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the store queues individual stat changes itself (see
+     * {@link #statChanged} and {@link #mapReset}). Such stores ignore the
+     * arguments to {@link #save} and just flush their queue.
+     *
+     * @return true if the store tracks changes itself
+     */
+    default boolean tracksChanges() {
+        return false;
+    }
+
+    /**
+     * Called whenever a stat is set or incremented. No value is passed because
+     * concurrent increments can report changes out of order; stores should read
+     * the current value when they write it.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     * @param statKey  The stat key
+     */
+    default void statChanged(UUID playerId, String mapName, String statKey) {
+    }
+
+    /**
+     * Called whenever all of a player's stats on a map are reset.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     */
+    default void mapReset(UUID playerId, String mapName) {
+    }
+
+    /**
+     * Whether changes for a player are queued or being written. Such players
+     * are kept in memory, since the store reads their values when it writes them.
+     *
+     * @param playerId The player UUID
+     * @return true if the player has changes the store hasn't written yet
+     */
+    default boolean hasPendingChanges(UUID playerId) {
+        return false;
+    }
+
+    /**
+     * Gets the total number of bytes this store has written to disk.
+     *
+     * @return Bytes written since the store was opened, or 0 if it doesn't write local files
+     */
+    default long getBytesWritten() {
+        return 0;
+    }
+}
@@ -0,0 +1,854 @@
+package net.mythofy.mapMorph.extensions;
+
+import java.util.AbstractMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Column-oriented storage for player stats.
+ * <p>
+ * Map names and stat keys are interned to small integer IDs, and every player gets
+ * a row number. Each (map, stat) pair is a column of paged primitive arrays: a
+ * {@code long[]} page holds the values (doubles and floats as raw bits) and a
+ * {@code byte[]} page holds each cell's type, so {@code getStat}/{@code setStat}
+ * keep returning the same boxed types as before. Values that aren't an
+ * {@code Integer}, {@code Long}, {@code Double}, {@code Float} or {@code Boolean}
+ * go in a parallel {@code Object[]} page, allocated only where needed.
+ * <p>
+ * Rows are guarded by striped {@link StampedLock}s: writes lock only their row's
+ * stripe, and reads are optimistic, so they normally take no lock.
+ * <p>
+ * The first increment of a cell turns it into a counter backed by a
+ * {@link LongAdder} or {@link DoubleAdder}; later increments just add to it
+ * without locking anything. A {@code setStat} racing an increment of the same
+ * cell wins, i.e. the increment is ordered before it.
+ * <p>
+ * Players must be added (with {@link #putPlayerIfAbsent}) before their stats can
+ * be written. Idle players can be evicted, and their rows are reused; writes
+ * report a player that was evicted under them so the caller can load it again.
+ */
+public class PlayerStatTable {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int STRIPES = 64;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final byte ABSENT = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte OBJECT = 6;
+    private static final byte NULL = 7;
+    // Incremented cells, backed by an adder in the object page
+    private static final byte COUNTER_INT = 8;
+    private static final byte COUNTER_LONG = 9;
+    private static final byte COUNTER_DOUBLE = 10;
+    private static final byte COUNTER_FLOAT = 11;
+
+    private final Map<String, Integer> mapIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> statIds = new ConcurrentHashMap<>();
+    private volatile String[] mapNames = new String[0];
+    private volatile String[] statNames = new String[0];
+    // Indexed by map ID, then stat ID
+    private volatile Column[][] columns = new Column[0][];
+
+    private final Map<UUID, Integer> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRow = new AtomicInteger();
+    private final Queue<Integer> freeRows = new ConcurrentLinkedQueue<>();
+    // Who owns each row and when it was last touched, paged like the columns
+    private volatile UUID[][] owners = new UUID[0][];
+    private volatile long[][] accessed = new long[0][];
+    private final StampedLock[] locks = new StampedLock[STRIPES];
+
+    public PlayerStatTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Gets a stat value.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     * @param statKey  The stat key
+     * @return The value, or null if not set
+     */
+    public Object get(UUID playerId, String mapName, String statKey) {
+        Integer row = rows.get(playerId);
+        Column column = column(mapName, statKey);
+        if (row == null || column == null) {
+            return null;
+        }
+        return read(row, () -> column.get(row));
+    }
+
+    /**
+     * Sets a stat value.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     * @param statKey  The stat key
+     * @param value    The new value
+     * @return false if the player isn't in the table (or was just evicted)
+     */
+    public boolean set(UUID playerId, String mapName, String statKey, Object value) {
+        Integer row = rows.get(playerId);
+        if (row == null) {
+            return false;
+        }
+        Column column = createColumn(mapName, statKey);
+        StampedLock lock = lockFor(row);
+        long stamp = lock.writeLock();
+        try {
+            // The row may have been evicted and reused since it was looked up
+            if (!playerId.equals(owner(row))) {
+                return false;
+            }
+            column.set(row, value);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds one to a numeric stat, creating it with a value of 1 if it isn't set.
+     * An {@code Integer} at its maximum becomes a {@code Long}.
+     * <p>
+     * Once a cell is a counter this doesn't lock; under contention the returned
+     * value may already include other threads' increments.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     * @param statKey  The stat key
+     * @return The new value, or null if the player isn't in the table (or was just evicted)
+     * @throws IllegalArgumentException if the stat is not a number
+     * @throws ArithmeticException if the stat can't be incremented any further
+     */
+    public Number increment(UUID playerId, String mapName, String statKey) {
+        Integer row = rows.get(playerId);
+        if (row == null) {
+            return null;
+        }
+        Column existing = column(mapName, statKey);
+        if (existing != null) {
+            Number value = existing.incrementCounter(row);
+            if (value != null && playerId.equals(owner(row))) {
+                return value;
+            }
+        }
+
+        // Not a counter yet: convert the cell under the row lock
+        Column column = createColumn(mapName, statKey);
+        StampedLock lock = lockFor(row);
+        long stamp = lock.writeLock();
+        try {
+            if (!playerId.equals(owner(row))) {
+                return null;
+            }
+            return column.increment(row, statKey);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets all stats a player has on a map.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     * @return A copy of the stats, empty if there are none
+     */
+    public Map<String, Object> getMap(UUID playerId, String mapName) {
+        Integer row = rows.get(playerId);
+        Integer mapId = mapIds.get(mapName);
+        if (row == null || mapId == null) {
+            return new HashMap<>();
+        }
+        return read(row, () -> readMap(row, mapId));
+    }
+
+    /**
+     * Removes all stats a player has on a map.
+     *
+     * @param playerId The player UUID
+     * @param mapName  The map name
+     * @return The removed stats, or null if the player had none on the map
+     */
+    public Map<String, Object> removeMap(UUID playerId, String mapName) {
+        Integer row = rows.get(playerId);
+        Integer mapId = mapIds.get(mapName);
+        if (row == null || mapId == null) {
+            return null;
+        }
+        StampedLock lock = lockFor(row);
+        long stamp = lock.writeLock();
+        try {
+            if (!playerId.equals(owner(row))) {
+                return null;
+            }
+            Map<String, Object> removed = readMap(row, mapId);
+            if (removed.isEmpty()) {
+                return null;
+            }
+            for (Column column : mapColumns(mapId)) {
+                if (column != null) {
+                    column.clear(row);
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets a consistent copy of all of a player's stats.
+     *
+     * @param playerId The player UUID
+     * @return Map name to stat key to value, or null if the player isn't in the table
+     */
+    public Map<String, Map<String, Object>> getPlayer(UUID playerId) {
+        Integer row = rows.get(playerId);
+        return row != null ? read(row, () -> readRow(row)) : null;
+    }
+
+    /**
+     * Adds a player loaded from storage, unless the player is already in the table.
+     *
+     * @param playerId The player UUID
+     * @param maps     Map name to stat key to value
+     * @return true if the player was added
+     */
+    public boolean putPlayerIfAbsent(UUID playerId, Map<String, Map<String, Object>> maps) {
+        boolean[] created = {false};
+        int row = rows.computeIfAbsent(playerId, k -> {
+            created[0] = true;
+            return allocateRow(k);
+        });
+        if (!created[0]) {
+            return false;
+        }
+
+        StampedLock lock = lockFor(row);
+        long stamp = lock.writeLock();
+        try {
+            for (Map.Entry<String, Map<String, Object>> mapEntry : maps.entrySet()) {
+                for (Map.Entry<String, Object> statEntry : mapEntry.getValue().entrySet()) {
+                    Column column = createColumn(mapEntry.getKey(), statEntry.getKey());
+                    // A stat set while the player was loading is newer than the stored one
+                    if (column.type(row) == ABSENT) {
+                        column.set(row, statEntry.getValue());
+                    }
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a player is in the table.
+     *
+     * @param playerId The player UUID
+     * @return true if the player has a row
+     */
+    public boolean contains(UUID playerId) {
+        return rows.containsKey(playerId);
+    }
+
+    /**
+     * Records that a player was just used, if the player is in the table.
+     *
+     * @param playerId The player UUID
+     * @param now      The current time in milliseconds
+     * @return true if the player has a row
+     */
+    public boolean touch(UUID playerId, long now) {
+        Integer row = rows.get(playerId);
+        if (row == null) {
+            return false;
+        }
+        accessed[row >>> PAGE_SHIFT][row & PAGE_MASK] = now;
+        return true;
+    }
+
+    /**
+     * Removes a player that hasn't been used since {@code idleSince}, freeing the row.
+     *
+     * @param playerId  The player UUID
+     * @param idleSince Only evict if the player was last touched at or before this time
+     * @param canEvict  Checked while the row is locked; return false to keep the player
+     * @return true if the player was evicted
+     */
+    public boolean evict(UUID playerId, long idleSince, Predicate<UUID> canEvict) {
+        Integer row = rows.get(playerId);
+        if (row == null) {
+            return false;
+        }
+        StampedLock lock = lockFor(row);
+        long stamp = lock.writeLock();
+        try {
+            if (!playerId.equals(owner(row))
+                    || accessed[row >>> PAGE_SHIFT][row & PAGE_MASK] > idleSince
+                    || !canEvict.test(playerId)) {
+                return false;
+            }
+            for (Column[] mapColumns : columns) {
+                if (mapColumns == null) {
+                    continue;
+                }
+                for (Column column : mapColumns) {
+                    if (column != null) {
+                        column.clear(row);
+                    }
+                }
+            }
+            owners[row >>> PAGE_SHIFT][row & PAGE_MASK] = null;
+            rows.remove(playerId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        freeRows.add(row);
+        return true;
+    }
+
+    /**
+     * Gets the players currently in the table.
+     *
+     * @return A live, read-only view of the player UUIDs
+     */
+    public Set<UUID> players() {
+        return Collections.unmodifiableSet(rows.keySet());
+    }
+
+    /**
+     * Gets every player's value for one stat.
+     *
+     * @param mapName The map name
+     * @param statKey The stat key
+     * @return Player UUIDs mapped to their values, for players that have the stat
+     */
+    public Map<UUID, Object> getColumn(String mapName, String statKey) {
+        Map<UUID, Object> values = new HashMap<>();
+        Column column = column(mapName, statKey);
+        if (column == null) {
+            return values;
+        }
+        for (Map.Entry<UUID, Integer> entry : rows.entrySet()) {
+            int row = entry.getValue();
+            read(row, () -> {
+                if (column.type(row) != ABSENT) {
+                    values.put(entry.getKey(), column.get(row));
+                }
+                return null;
+            });
+        }
+        return values;
+    }
+
+    /**
+     * Gets the number of players in the table.
+     *
+     * @return The player count
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Removes every player and stat.
+     */
+    public synchronized void clear() {
+        rows.clear();
+        nextRow.set(0);
+        freeRows.clear();
+        owners = new UUID[0][];
+        accessed = new long[0][];
+        columns = new Column[0][];
+        mapIds.clear();
+        statIds.clear();
+        mapNames = new String[0];
+        statNames = new String[0];
+    }
+
+    /**
+     * Gets a read-only view of the table as player UUID to map name to stat key
+     * to value. Each player is copied as it is reached, so iterating the view
+     * doesn't copy the whole table at once.
+     *
+     * @return The view
+     */
+    public Map<UUID, Map<String, Map<String, Object>>> asMap() {
+        return new AbstractMap<UUID, Map<String, Map<String, Object>>>() {
+            @Override
+            public Map<String, Map<String, Object>> get(Object key) {
+                return key instanceof UUID ? getPlayer((UUID) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return rows.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+
+            @Override
+            public Set<Entry<UUID, Map<String, Map<String, Object>>>> entrySet() {
+                return new AbstractSet<Entry<UUID, Map<String, Map<String, Object>>>>() {
+                    @Override
+                    public int size() {
+                        return rows.size();
+                    }
+
+                    @Override
+                    public Iterator<Entry<UUID, Map<String, Map<String, Object>>>> iterator() {
+                        Iterator<Map.Entry<UUID, Integer>> players = rows.entrySet().iterator();
+                        return new Iterator<Entry<UUID, Map<String, Map<String, Object>>>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return players.hasNext();
+                            }
+
+                            @Override
+                            public Entry<UUID, Map<String, Map<String, Object>>> next() {
+                                Map.Entry<UUID, Integer> player = players.next();
+                                int row = player.getValue();
+                                return new SimpleImmutableEntry<>(player.getKey(), read(row, () -> readRow(row)));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Runs a read optimistically, retrying under the row's read lock if a write
+     * to the row happened at the same time. An optimistic read can see a cell
+     * halfway through being replaced, so it failing is treated the same way.
+     */
+    private <T> T read(int row, Supplier<T> reader) {
+        StampedLock lock = lockFor(row);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Inconsistent snapshot; read again under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Map<String, Object> readMap(int row, int mapId) {
+        Map<String, Object> stats = new HashMap<>();
+        // Columns before names: a stat's name is published before its column,
+        // so names read second always cover the columns read first
+        Column[] mapColumns = mapColumns(mapId);
+        String[] names = statNames;
+        for (int statId = 0; statId < mapColumns.length && statId < names.length; statId++) {
+            Column column = mapColumns[statId];
+            if (column != null && column.type(row) != ABSENT) {
+                stats.put(names[statId], column.get(row));
+            }
+        }
+        return stats;
+    }
+
+    private Map<String, Map<String, Object>> readRow(int row) {
+        Map<String, Map<String, Object>> maps = new HashMap<>();
+        String[] names = mapNames;
+        for (int mapId = 0; mapId < names.length; mapId++) {
+            Map<String, Object> stats = readMap(row, mapId);
+            if (!stats.isEmpty()) {
+                maps.put(names[mapId], stats);
+            }
+        }
+        return maps;
+    }
+
+    private int allocateRow(UUID playerId) {
+        Integer free = freeRows.poll();
+        int row = free != null ? free : nextRow.getAndIncrement();
+        int page = row >>> PAGE_SHIFT;
+        if (page >= owners.length || owners[page] == null) {
+            addRowPage(page);
+        }
+        accessed[page][row & PAGE_MASK] = System.currentTimeMillis();
+        owners[page][row & PAGE_MASK] = playerId;
+        return row;
+    }
+
+    private synchronized void addRowPage(int page) {
+        if (page < owners.length && owners[page] != null) {
+            return;
+        }
+        UUID[][] newOwners = Arrays.copyOf(owners, Math.max(owners.length, page + 1));
+        long[][] newAccessed = Arrays.copyOf(accessed, Math.max(accessed.length, page + 1));
+        newOwners[page] = new UUID[PAGE_SIZE];
+        newAccessed[page] = new long[PAGE_SIZE];
+        accessed = newAccessed;
+        owners = newOwners;
+    }
+
+    private UUID owner(int row) {
+        UUID[][] pages = owners;
+        int page = row >>> PAGE_SHIFT;
+        return page < pages.length && pages[page] != null ? pages[page][row & PAGE_MASK] : null;
+    }
+
+    private StampedLock lockFor(int row) {
+        return locks[row & (STRIPES - 1)];
+    }
+
+    private Column[] mapColumns(int mapId) {
+        Column[][] current = columns;
+        Column[] mapColumns = mapId < current.length ? current[mapId] : null;
+        return mapColumns != null ? mapColumns : new Column[0];
+    }
+
+    private Column column(String mapName, String statKey) {
+        Integer mapId = mapIds.get(mapName);
+        Integer statId = statIds.get(statKey);
+        if (mapId == null || statId == null) {
+            return null;
+        }
+        Column[] mapColumns = mapColumns(mapId);
+        return statId < mapColumns.length ? mapColumns[statId] : null;
+    }
+
+    private Column createColumn(String mapName, String statKey) {
+        Column column = column(mapName, statKey);
+        return column != null ? column : addColumn(mapName, statKey);
+    }
+
+    private synchronized Column addColumn(String mapName, String statKey) {
+        Column column = column(mapName, statKey);
+        if (column != null) {
+            return column;
+        }
+        int mapId = intern(mapName, mapIds, true);
+        int statId = intern(statKey, statIds, false);
+
+        // Copy on write so readers never see a half-built array
+        Column[][] updated = Arrays.copyOf(columns, Math.max(columns.length, mapId + 1));
+        Column[] mapColumns = updated[mapId] != null ? updated[mapId] : new Column[0];
+        mapColumns = Arrays.copyOf(mapColumns, Math.max(mapColumns.length, statId + 1));
+        column = new Column();
+        mapColumns[statId] = column;
+        updated[mapId] = mapColumns;
+        columns = updated;
+        return column;
+    }
+
+    private int intern(String name, Map<String, Integer> ids, boolean map) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        String[] names = map ? mapNames : statNames;
+        String[] updated = Arrays.copyOf(names, names.length + 1);
+        updated[names.length] = name;
+        if (map) {
+            mapNames = updated;
+        } else {
+            statNames = updated;
+        }
+        ids.put(name, names.length);
+        return names.length;
+    }
+
+    /**
+     * One (map, stat) pair. Pages are allocated as rows first use them.
+     * Cells are only written while holding the row's write lock, except that
+     * counters are added to directly.
+     */
+    private static final class Column {
+        private volatile long[][] values = new long[0][];
+        private volatile byte[][] types = new byte[0][];
+        // Non-primitive values and counters, only allocated for pages that need them
+        private volatile Object[][] objects = new Object[0][];
+
+        byte type(int row) {
+            byte[][] pages = types;
+            int page = row >>> PAGE_SHIFT;
+            if (page >= pages.length || pages[page] == null) {
+                return ABSENT;
+            }
+            return pages[page][row & PAGE_MASK];
+        }
+
+        long bits(int row) {
+            long[][] pages = values;
+            int page = row >>> PAGE_SHIFT;
+            if (page >= pages.length || pages[page] == null) {
+                return 0;
+            }
+            return pages[page][row & PAGE_MASK];
+        }
+
+        Object object(int row) {
+            Object[][] pages = objects;
+            int page = row >>> PAGE_SHIFT;
+            if (page >= pages.length || pages[page] == null) {
+                return null;
+            }
+            return SLOTS.getVolatile(pages[page], row & PAGE_MASK);
+        }
+
+        Object get(int row) {
+            long bits = bits(row);
+            byte type = type(row);
+            switch (type) {
+                case INT:
+                    return (int) bits;
+                case LONG:
+                    return bits;
+                case DOUBLE:
+                    return Double.longBitsToDouble(bits);
+                case FLOAT:
+                    return Float.intBitsToFloat((int) bits);
+                case BOOLEAN:
+                    return bits != 0;
+                case OBJECT:
+                    return object(row);
+                case COUNTER_INT:
+                case COUNTER_LONG: {
+                    // As in incrementCounter, the cell may have been replaced since its type was read
+                    Object counter = object(row);
+                    return counter instanceof LongAdder ? counterValue(type, counter) : null;
+                }
+                case COUNTER_DOUBLE:
+                case COUNTER_FLOAT: {
+                    Object counter = object(row);
+                    return counter instanceof DoubleAdder ? counterValue(type, counter) : null;
+                }
+                default:
+                    return null;
+            }
+        }
+
+        void set(int row, Object value) {
+            if (value instanceof Integer) {
+                write(row, INT, (Integer) value, null);
+            } else if (value instanceof Long) {
+                write(row, LONG, (Long) value, null);
+            } else if (value instanceof Double) {
+                write(row, DOUBLE, Double.doubleToRawLongBits((Double) value), null);
+            } else if (value instanceof Float) {
+                write(row, FLOAT, Float.floatToRawIntBits((Float) value), null);
+            } else if (value instanceof Boolean) {
+                write(row, BOOLEAN, (Boolean) value ? 1 : 0, null);
+            } else if (value == null) {
+                write(row, NULL, 0, null);
+            } else {
+                write(row, OBJECT, 0, value);
+            }
+        }
+
+        /**
+         * Adds one to a counter cell without locking.
+         *
+         * @return The new value, or null if the cell isn't a counter
+         */
+        Number incrementCounter(int row) {
+            byte type = type(row);
+            Object counter = object(row);
+            switch (type) {
+                case COUNTER_INT:
+                case COUNTER_LONG:
+                    // The type and object are read separately; a cell replaced in
+                    // between won't hold the kind of adder its old type implies
+                    if (!(counter instanceof LongAdder)) {
+                        return null;
+                    }
+                    LongAdder longAdder = (LongAdder) counter;
+                    if (type == COUNTER_LONG && longAdder.sum() == Long.MAX_VALUE) {
+                        throw new ArithmeticException("Long value too large to increment");
+                    }
+                    longAdder.increment();
+                    // If the cell was replaced or evicted meanwhile, the add went to a
+                    // discarded adder; report that so the caller redoes it
+                    return object(row) == longAdder ? counterValue(type, longAdder) : null;
+                case COUNTER_DOUBLE:
+                case COUNTER_FLOAT:
+                    if (!(counter instanceof DoubleAdder)) {
+                        return null;
+                    }
+                    DoubleAdder doubleAdder = (DoubleAdder) counter;
+                    double current = doubleAdder.sum();
+                    if (Double.isInfinite(current) || Double.isNaN(current)) {
+                        throw new ArithmeticException(type == COUNTER_FLOAT ? "Invalid float value" : "Invalid double value");
+                    }
+                    doubleAdder.add(1.0);
+                    return object(row) == doubleAdder ? counterValue(type, doubleAdder) : null;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Adds one to a cell, turning it into a counter. Called with the row's write lock held.
+         */
+        Number increment(int row, String statKey) {
+            Number counted = incrementCounter(row);
+            if (counted != null) {
+                return counted;
+            }
+
+            long bits = bits(row);
+            switch (type(row)) {
+                case ABSENT:
+                case NULL:
+                    return startCounter(row, COUNTER_INT, 1L);
+                case INT:
+                    // Past Integer.MAX_VALUE the counter reads as a Long instead of overflowing
+                    return startCounter(row, COUNTER_INT, bits + 1L);
+                case LONG:
+                    if (bits == Long.MAX_VALUE) {
+                        throw new ArithmeticException("Long value too large to increment");
+                    }
+                    return startCounter(row, COUNTER_LONG, bits + 1L);
+                case DOUBLE: {
+                    double value = Double.longBitsToDouble(bits);
+                    if (Double.isInfinite(value) || Double.isNaN(value)) {
+                        throw new ArithmeticException("Invalid double value");
+                    }
+                    return startCounter(row, COUNTER_DOUBLE, value + 1.0);
+                }
+                case FLOAT: {
+                    float value = Float.intBitsToFloat((int) bits);
+                    if (Float.isInfinite(value) || Float.isNaN(value)) {
+                        throw new ArithmeticException("Invalid float value");
+                    }
+                    return startCounter(row, COUNTER_FLOAT, value + 1.0);
+                }
+                case OBJECT: {
+                    Object value = object(row);
+                    if (value instanceof Number) {
+                        // Default to double for other numeric types
+                        double incremented = ((Number) value).doubleValue() + 1.0;
+                        set(row, incremented);
+                        return incremented;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+            throw new IllegalArgumentException("Cannot increment non-numeric stat: " + statKey);
+        }
+
+        private Number startCounter(int row, byte type, long initial) {
+            LongAdder adder = new LongAdder();
+            adder.add(initial);
+            write(row, type, 0, adder);
+            return counterValue(type, adder);
+        }
+
+        private Number startCounter(int row, byte type, double initial) {
+            DoubleAdder adder = new DoubleAdder();
+            adder.add(initial);
+            write(row, type, 0, adder);
+            return counterValue(type, adder);
+        }
+
+        private static Number counterValue(byte type, Object counter) {
+            switch (type) {
+                case COUNTER_INT: {
+                    long sum = ((LongAdder) counter).sum();
+                    if (sum >= Integer.MIN_VALUE && sum <= Integer.MAX_VALUE) {
+                        return (int) sum;
+                    }
+                    return sum;
+                }
+                case COUNTER_LONG:
+                    return ((LongAdder) counter).sum();
+                case COUNTER_FLOAT:
+                    return (float) ((DoubleAdder) counter).sum();
+                default:
+                    return ((DoubleAdder) counter).sum();
+            }
+        }
+
+        void clear(int row) {
+            if (type(row) != ABSENT) {
+                write(row, ABSENT, 0, null);
+            }
+        }
+
+        private void write(int row, byte type, long bits, Object object) {
+            int page = row >>> PAGE_SHIFT;
+            int index = row & PAGE_MASK;
+            if (page >= types.length || types[page] == null) {
+                addPage(page);
+            }
+            if (object != null) {
+                if (page >= objects.length || objects[page] == null) {
+                    addObjectPage(page);
+                }
+                SLOTS.setVolatile(objects[page], index, object);
+            } else if (page < objects.length && objects[page] != null) {
+                SLOTS.setVolatile(objects[page], index, (Object) null);
+            }
+            values[page][index] = bits;
+            types[page][index] = type;
+        }
+
+        private synchronized void addPage(int page) {
+            if (page < types.length && types[page] != null) {
+                return;
+            }
+            long[][] newValues = Arrays.copyOf(values, Math.max(values.length, page + 1));
+            byte[][] newTypes = Arrays.copyOf(types, Math.max(types.length, page + 1));
+            newValues[page] = new long[PAGE_SIZE];
+            newTypes[page] = new byte[PAGE_SIZE];
+            values = newValues;
+            types = newTypes;
+        }
+
+        private synchronized void addObjectPage(int page) {
+            if (page < objects.length && objects[page] != null) {
+                return;
+            }
+            Object[][] newObjects = Arrays.copyOf(objects, Math.max(objects.length, page + 1));
+            newObjects[page] = new Object[PAGE_SIZE];
+            objects = newObjects;
+        }
+    }
+}
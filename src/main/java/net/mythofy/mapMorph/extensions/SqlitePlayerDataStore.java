@@ -0,0 +1,275 @@
+package net.mythofy.mapMorph.extensions;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Stores player data in a SQLite database ({@code player_data/data.db}) in WAL mode.
+ * <p>
+ * All database access runs on one dedicated thread that owns the connection.
+ * A save writes only the changed players: their old rows are deleted and their
+ * current rows inserted using prepared-statement batches in a single transaction.
+ * Players are loaded lazily when they join rather than all at startup.
+ * Uses the SQLite JDBC driver bundled with the server.
+ */
+public class SqlitePlayerDataStore implements PlayerDataStore {
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_INT = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_DOUBLE = 3;
+    private static final int TYPE_FLOAT = 4;
+    private static final int TYPE_BOOLEAN = 5;
+    private static final int TYPE_STRING = 6;
+
+    private final File file;
+    private final Logger logger;
+    private final String table;
+    private final ExecutorService writer;
+    private Connection connection;
+
+    /**
+     * Creates a SQLite store and opens its database.
+     *
+     * @param file        The database file
+     * @param logger      The logger for warnings
+     * @param tablePrefix Prefix for table names
+     * @throws IOException if the database cannot be opened
+     */
+    public SqlitePlayerDataStore(File file, Logger logger, String tablePrefix) throws IOException {
+        this.file = file;
+        this.logger = logger;
+        this.table = tablePrefix + "player_stats";
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MapMorph-SQLite-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        call(() -> {
+            open();
+            return null;
+        });
+    }
+
+    private void open() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "player_uuid TEXT NOT NULL, "
+                    + "map_name TEXT NOT NULL, "
+                    + "stat_key TEXT NOT NULL, "
+                    + "value_type INTEGER NOT NULL, "
+                    + "value, "
+                    + "PRIMARY KEY (player_uuid, map_name, stat_key))");
+        }
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public Map<UUID, Map<String, Map<String, Object>>> loadAll() throws IOException {
+        return call(() -> {
+            Map<UUID, Map<String, Map<String, Object>>> players = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery(
+                         "SELECT player_uuid, map_name, stat_key, value_type, value FROM " + table)) {
+                while (rows.next()) {
+                    UUID playerId;
+                    try {
+                        playerId = UUID.fromString(rows.getString(1));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Invalid UUID in player data: " + rows.getString(1));
+                        continue;
+                    }
+                    players.computeIfAbsent(playerId, k -> new HashMap<>())
+                            .computeIfAbsent(rows.getString(2), k -> new HashMap<>())
+                            .put(rows.getString(3), readValue(rows, 4));
+                }
+            }
+            return players;
+        });
+    }
+
+    @Override
+    public void forEachStat(StatVisitor visitor) throws IOException {
+        call(() -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery(
+                         "SELECT player_uuid, map_name, stat_key, value_type, value FROM " + table)) {
+                while (rows.next()) {
+                    UUID playerId;
+                    try {
+                        playerId = UUID.fromString(rows.getString(1));
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    visitor.visit(playerId, rows.getString(2), rows.getString(3), readValue(rows, 4));
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> loadPlayer(UUID playerId) throws IOException {
+        return call(() -> {
+            Map<String, Map<String, Object>> maps = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT map_name, stat_key, value_type, value FROM " + table + " WHERE player_uuid = ?")) {
+                statement.setString(1, playerId.toString());
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        maps.computeIfAbsent(rows.getString(1), k -> new HashMap<>())
+                                .put(rows.getString(2), readValue(rows, 3));
+                    }
+                }
+            }
+            return maps;
+        });
+    }
+
+    @Override
+    public void save(Map<UUID, Map<String, Map<String, Object>>> changed,
+                     Map<UUID, Map<String, Map<String, Object>>> all) throws IOException {
+        if (changed.isEmpty()) {
+            return;
+        }
+        call(() -> {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(
+                         "DELETE FROM " + table + " WHERE player_uuid = ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO " + table + " (player_uuid, map_name, stat_key, value_type, value) VALUES (?, ?, ?, ?, ?)")) {
+                for (Map.Entry<UUID, Map<String, Map<String, Object>>> player : changed.entrySet()) {
+                    String playerId = player.getKey().toString();
+                    delete.setString(1, playerId);
+                    delete.addBatch();
+                    for (Map.Entry<String, Map<String, Object>> map : player.getValue().entrySet()) {
+                        for (Map.Entry<String, Object> stat : map.getValue().entrySet()) {
+                            insert.setString(1, playerId);
+                            insert.setString(2, map.getKey());
+                            insert.setString(3, stat.getKey());
+                            bindValue(insert, 4, stat.getValue());
+                            insert.addBatch();
+                        }
+                    }
+                }
+                // Deletes first so re-inserted rows don't collide with the old ones
+                delete.executeBatch();
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        try {
+            call(() -> {
+                if (connection != null) {
+                    connection.close();
+                    connection = null;
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            logger.warning("Failed to close SQLite database: " + e.getMessage());
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("SQLite writer thread did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a task on the writer thread and waits for it, so callers see its errors.
+     */
+    private <T> T call(Callable<T> task) throws IOException {
+        try {
+            return writer.submit(task).get();
+        } catch (ExecutionException e) {
+            throw new IOException("SQLite operation failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for SQLite", e);
+        } catch (RejectedExecutionException e) {
+            throw new IOException("SQLite store is closed", e);
+        }
+    }
+
+    private static void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setInt(index, TYPE_NULL);
+            statement.setNull(index + 1, Types.NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            statement.setInt(index, TYPE_INT);
+            statement.setLong(index + 1, ((Number) value).longValue());
+        } else if (value instanceof Long) {
+            statement.setInt(index, TYPE_LONG);
+            statement.setLong(index + 1, (Long) value);
+        } else if (value instanceof Double) {
+            statement.setInt(index, TYPE_DOUBLE);
+            statement.setDouble(index + 1, (Double) value);
+        } else if (value instanceof Float) {
+            statement.setInt(index, TYPE_FLOAT);
+            statement.setDouble(index + 1, (Float) value);
+        } else if (value instanceof Boolean) {
+            statement.setInt(index, TYPE_BOOLEAN);
+            statement.setInt(index + 1, (Boolean) value ? 1 : 0);
+        } else {
+            statement.setInt(index, TYPE_STRING);
+            statement.setString(index + 1, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(ResultSet rows, int index) throws SQLException {
+        switch (rows.getInt(index)) {
+            case TYPE_INT:
+                return (int) rows.getLong(index + 1);
+            case TYPE_LONG:
+                return rows.getLong(index + 1);
+            case TYPE_DOUBLE:
+                return rows.getDouble(index + 1);
+            case TYPE_FLOAT:
+                return (float) rows.getDouble(index + 1);
+            case TYPE_BOOLEAN:
+                return rows.getInt(index + 1) != 0;
+            case TYPE_STRING:
+                return rows.getString(index + 1);
+            default:
+                return null;
+        }
+    }
+}
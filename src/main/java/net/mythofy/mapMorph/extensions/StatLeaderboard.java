@@ -0,0 +1,287 @@
+package net.mythofy.mapMorph.extensions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * A leaderboard for one stat on one map, kept sorted as stats change.
+ * <p>
+ * Numeric values are held in a treap ordered by value (highest first, ties broken
+ * by UUID) where every node knows the size of its subtree. That gives
+ * O(log n) updates and rank lookups, and top-k reads in O(log n + k).
+ * Non-numeric values can't be ranked this way; while any player has one,
+ * {@link #isComplete()} returns false and callers fall back to sorting.
+ * <p>
+ * Stat changes only mark the player with {@link #markChanged(UUID)}, which
+ * doesn't lock. Marked players are re-read from the value source and re-ranked
+ * on the next query, so hot increments don't serialize on the leaderboard.
+ */
+public class StatLeaderboard {
+
+    private static final class Node {
+        final Number value;
+        final UUID playerId;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(Number value, UUID playerId) {
+            this.value = value;
+            this.playerId = playerId;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private final Function<UUID, Object> source;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Number> values = new HashMap<>();
+    private final Set<UUID> nonNumeric = new HashSet<>();
+    private Node root;
+
+    /**
+     * Creates an empty leaderboard.
+     *
+     * @param source Reads a player's current value, used for players marked as changed
+     */
+    public StatLeaderboard(Function<UUID, Object> source) {
+        this.source = source;
+    }
+
+    /**
+     * Marks a player's value as changed. It is read and re-ranked on the next query.
+     *
+     * @param playerId The player UUID
+     */
+    public void markChanged(UUID playerId) {
+        pending.add(playerId);
+    }
+
+    /**
+     * Re-ranks every player marked as changed now rather than on the next query.
+     */
+    public synchronized void refresh() {
+        applyPending();
+    }
+
+    /**
+     * Records a player's new value, replacing any previous one.
+     *
+     * @param playerId The player UUID
+     * @param value    The new value, or null to remove the player
+     */
+    public synchronized void update(UUID playerId, Object value) {
+        remove(playerId);
+        if (value instanceof Number && !isNaN((Number) value)) {
+            Number number = (Number) value;
+            values.put(playerId, number);
+            root = insert(root, new Node(number, playerId));
+        } else if (value != null) {
+            nonNumeric.add(playerId);
+        }
+    }
+
+    /**
+     * Removes a player from the leaderboard.
+     *
+     * @param playerId The player UUID
+     */
+    public synchronized void remove(UUID playerId) {
+        Number old = values.remove(playerId);
+        if (old != null) {
+            root = delete(root, old, playerId);
+        }
+        nonNumeric.remove(playerId);
+    }
+
+    /**
+     * Whether every value for this stat is ranked. False while any player holds
+     * a non-numeric value.
+     *
+     * @return true if the leaderboard covers all players with this stat
+     */
+    public synchronized boolean isComplete() {
+        applyPending();
+        return nonNumeric.isEmpty();
+    }
+
+    /**
+     * Gets the number of ranked players.
+     *
+     * @return The number of players with a numeric value
+     */
+    public synchronized int size() {
+        applyPending();
+        return size(root);
+    }
+
+    /**
+     * Gets the highest values in descending order.
+     *
+     * @param limit The maximum number of players to return
+     * @return Player UUIDs mapped to their values, highest first
+     */
+    public synchronized Map<UUID, Object> top(int limit) {
+        applyPending();
+        Map<UUID, Object> result = new LinkedHashMap<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while ((node != null || !stack.isEmpty()) && result.size() < limit) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.put(node.playerId, node.value);
+            node = node.right;
+        }
+        return result;
+    }
+
+    /**
+     * Gets a player's rank.
+     *
+     * @param playerId The player UUID
+     * @return The rank starting from 1, or 0 if the player isn't ranked
+     */
+    public synchronized int rank(UUID playerId) {
+        applyPending();
+        Number value = values.get(playerId);
+        if (value == null) {
+            return 0;
+        }
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(value, playerId, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left) + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void applyPending() {
+        for (UUID playerId : pending) {
+            // Remove first so a change made while re-reading marks the player again
+            if (pending.remove(playerId)) {
+                update(playerId, source.apply(playerId));
+            }
+        }
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.value, added.playerId, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Number value, UUID playerId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(value, playerId, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, value, playerId);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, value, playerId);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Orders higher values first, then by UUID so every entry has a unique position.
+     */
+    private static int compare(Number value, UUID playerId, Node node) {
+        int cmp = compareValues(node.value, value);
+        return cmp != 0 ? cmp : playerId.compareTo(node.playerId);
+    }
+
+    /**
+     * Compares two numbers, exactly for integers and as doubles otherwise.
+     */
+    static int compareValues(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long
+                || number instanceof Short || number instanceof Byte;
+    }
+
+    private static boolean isNaN(Number number) {
+        return (number instanceof Double || number instanceof Float) && Double.isNaN(number.doubleValue());
+    }
+}
@@ -0,0 +1,130 @@
+package net.mythofy.mapMorph.extensions;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores player data in a single {@code data.yml}, rewritten in full on every save.
+ * <p>
+ * Each save is written to {@code data.yml.tmp}, synced to disk and then moved
+ * over the old file atomically, so a crash mid-save leaves the previous file intact.
+ */
+public class YamlPlayerDataStore implements PlayerDataStore {
+
+    private final File file;
+    private final Logger logger;
+    private volatile long bytesWritten = 0;
+
+    /**
+     * Creates a YAML store.
+     *
+     * @param file   The YAML file (usually {@code player_data/data.yml})
+     * @param logger The logger for warnings
+     */
+    public YamlPlayerDataStore(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    @Override
+    public Map<UUID, Map<String, Map<String, Object>>> loadAll() {
+        Map<UUID, Map<String, Map<String, Object>>> playerData = new HashMap<>();
+        if (!file.exists()) {
+            logger.info("Player data file doesn't exist yet, creating a new one");
+            return playerData;
+        }
+
+        YamlConfiguration dataConfig = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection dataSection = dataConfig.getConfigurationSection("player_data");
+
+        if (dataSection != null) {
+            for (String playerIdStr : dataSection.getKeys(false)) {
+                try {
+                    UUID playerId = UUID.fromString(playerIdStr);
+                    ConfigurationSection playerSection = dataSection.getConfigurationSection(playerIdStr);
+                    if (playerSection != null) {
+                        Map<String, Map<String, Object>> mapData = new HashMap<>();
+
+                        for (String mapName : playerSection.getKeys(false)) {
+                            ConfigurationSection mapSection = playerSection.getConfigurationSection(mapName);
+                            if (mapSection != null) {
+                                Map<String, Object> stats = new HashMap<>();
+                                for (String statKey : mapSection.getKeys(false)) {
+                                    stats.put(statKey, mapSection.get(statKey));
+                                }
+                                mapData.put(mapName, stats);
+                            }
+                        }
+
+                        playerData.put(playerId, mapData);
+                    }
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Invalid UUID in player data: " + playerIdStr);
+                }
+            }
+        }
+        return playerData;
+    }
+
+    @Override
+    public synchronized void save(Map<UUID, Map<String, Map<String, Object>>> changed,
+                     Map<UUID, Map<String, Map<String, Object>>> all) throws IOException {
+        File dataFolder = file.getParentFile();
+        if (dataFolder != null && !dataFolder.exists() && !dataFolder.mkdirs()) {
+            logger.warning("Failed to create player_data directory");
+            return;
+        }
+
+        YamlConfiguration dataConfig = new YamlConfiguration();
+
+        // Create configuration sections for player data
+        for (Map.Entry<UUID, Map<String, Map<String, Object>>> playerEntry : all.entrySet()) {
+            String playerPath = "player_data." + playerEntry.getKey().toString();
+
+            for (Map.Entry<String, Map<String, Object>> mapEntry : playerEntry.getValue().entrySet()) {
+                String mapPath = playerPath + "." + mapEntry.getKey();
+
+                for (Map.Entry<String, Object> statEntry : mapEntry.getValue().entrySet()) {
+                    String statPath = mapPath + "." + statEntry.getKey();
+                    dataConfig.set(statPath, statEntry.getValue());
+                }
+            }
+        }
+
+        byte[] bytes = dataConfig.saveToString().getBytes(StandardCharsets.UTF_8);
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (FileChannel tempChannel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                tempChannel.write(buffer);
+            }
+            tempChannel.force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        bytesWritten += bytes.length;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
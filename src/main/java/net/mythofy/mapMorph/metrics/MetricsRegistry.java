@@ -0,0 +1,162 @@
+package net.mythofy.mapMorph.metrics;
+
+import net.mythofy.mapMorph.MapMorph;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Histograms of how long MapMorph's heavy operations take. Recording is
+ * lock-free and safe from any thread.
+ * <p>
+ * The histograms are shown by {@code /mapmorph perf}, the {@code %mapmorph_perf_<metric>_<stat>%}
+ * placeholders and, if enabled, the {@link PrometheusExporter}.
+ */
+public class MetricsRegistry {
+
+    public static final String PARSE_TIME = "parse_time_ms";
+    public static final String PASTE_TIME = "paste_time_ms";
+    public static final String PASTE_BLOCKS_PER_SECOND = "paste_blocks_per_second";
+    public static final String ENTITY_CLEANUP_TIME = "entity_cleanup_time_ms";
+    public static final String TELEPORT_BATCH_TIME = "teleport_batch_time_us";
+    public static final String PLAYER_DATA_SAVE_TIME = "player_data_save_time_ms";
+    public static final String SWAP_TIME = "swap_time_ms";
+
+    /** Percentiles reported everywhere the histograms are shown. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final Map<String, Histogram> histograms;
+
+    /**
+     * Creates a registry with every MapMorph metric.
+     */
+    public MetricsRegistry() {
+        Map<String, Histogram> all = new LinkedHashMap<>();
+        add(all, PARSE_TIME, "ms", "Time to read and parse a schematic file");
+        add(all, PASTE_TIME, "ms", "Wall time of a schematic paste");
+        add(all, PASTE_BLOCKS_PER_SECOND, "blocks/s", "Blocks written per second of paste wall time");
+        add(all, ENTITY_CLEANUP_TIME, "ms", "Wall time of entity cleanup before a paste");
+        add(all, TELEPORT_BATCH_TIME, "us", "Main-thread time of one mass teleport batch");
+        add(all, PLAYER_DATA_SAVE_TIME, "ms", "Time to save changed player data");
+        add(all, SWAP_TIME, "ms", "Wall time of a whole map swap");
+        this.histograms = Collections.unmodifiableMap(all);
+    }
+
+    private static void add(Map<String, Histogram> all, String name, String unit, String help) {
+        all.put(name, new Histogram(name, unit, help));
+    }
+
+    /**
+     * Records a value in a plugin's registry. Does nothing for plugins other than MapMorph.
+     *
+     * @param plugin The plugin instance
+     * @param metric The metric name
+     * @param value  The value
+     */
+    public static void record(Plugin plugin, String metric, long value) {
+        if (plugin instanceof MapMorph && ((MapMorph) plugin).getMetricsRegistry() != null) {
+            ((MapMorph) plugin).getMetricsRegistry().record(metric, value);
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param metric The metric name
+     * @param value  The value
+     */
+    public void record(String metric, long value) {
+        Histogram histogram = histograms.get(metric);
+        if (histogram != null) {
+            histogram.record(value);
+        }
+    }
+
+    /**
+     * Gets a histogram.
+     *
+     * @param metric The metric name
+     * @return The histogram, or null if there is no such metric
+     */
+    public Histogram getHistogram(String metric) {
+        return histograms.get(metric);
+    }
+
+    /**
+     * Gets every histogram.
+     *
+     * @return The histograms in a fixed order
+     */
+    public Collection<Histogram> getHistograms() {
+        return histograms.values();
+    }
+
+    /**
+     * Clears every histogram.
+     */
+    public void reset() {
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Gets one statistic of a histogram, as used by placeholders.
+     *
+     * @param metric The metric name
+     * @param stat   One of count, min, max, mean, p50, p90, p99 or p999
+     * @return The value, or null if the metric or statistic is unknown
+     */
+    public String getStat(String metric, String stat) {
+        Histogram histogram = histograms.get(metric);
+        if (histogram == null) {
+            return null;
+        }
+        switch (stat.toLowerCase(Locale.ROOT)) {
+            case "count":
+                return String.valueOf(histogram.getCount());
+            case "min":
+                return String.valueOf(histogram.getMin());
+            case "max":
+                return String.valueOf(histogram.getMax());
+            case "mean":
+                return String.format(Locale.ROOT, "%.1f", histogram.getMean());
+            case "p50":
+                return String.valueOf(histogram.getValueAtPercentile(50));
+            case "p90":
+                return String.valueOf(histogram.getValueAtPercentile(90));
+            case "p99":
+                return String.valueOf(histogram.getValueAtPercentile(99));
+            case "p999":
+                return String.valueOf(histogram.getValueAtPercentile(99.9));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Writes every histogram in the Prometheus text exposition format, as summaries.
+     *
+     * @return The exposition text
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        for (Histogram histogram : histograms.values()) {
+            String name = "mapmorph_" + histogram.getName();
+            out.append("# HELP ").append(name).append(' ').append(histogram.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                out.append(name).append("{quantile=\"").append(QUANTILES[i]).append("\"} ")
+                        .append(histogram.getValueAtPercentile(PERCENTILES[i])).append('\n');
+            }
+            out.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+            out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package net.mythofy.mapMorph.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the {@link MetricsRegistry} in the Prometheus text format over HTTP,
+ * configured under {@code metrics.prometheus}. Off by default and bound to
+ * localhost unless configured otherwise. Requests are answered on a single
+ * daemon thread, never the main thread.
+ */
+public class PrometheusExporter {
+
+    private final JavaPlugin plugin;
+    private final MetricsRegistry registry;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a stopped exporter.
+     *
+     * @param plugin   The plugin instance (for config and logging)
+     * @param registry The metrics to serve
+     */
+    public PrometheusExporter(JavaPlugin plugin, MetricsRegistry registry) {
+        this.plugin = plugin;
+        this.registry = registry;
+    }
+
+    /**
+     * Starts or stops the endpoint to match {@code metrics.prometheus.enabled},
+     * restarting it if it's already running so address changes apply.
+     */
+    public synchronized void applyConfig() {
+        stop();
+        if (!plugin.getConfig().getBoolean("metrics.prometheus.enabled", false)) {
+            return;
+        }
+
+        String bind = plugin.getConfig().getString("metrics.prometheus.bind", "127.0.0.1");
+        int port = plugin.getConfig().getInt("metrics.prometheus.port", 9940);
+        String path = plugin.getConfig().getString("metrics.prometheus.path", "/metrics");
+        try {
+            server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+            server.createContext(path, this::handle);
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MapMorph-Prometheus");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.start();
+            plugin.getLogger().info("Serving Prometheus metrics at http://" + bind + ":" + port + path);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to start Prometheus metrics endpoint on " + bind + ":" + port + ": " + e.getMessage());
+            e.printStackTrace();
+            stop();
+        }
+    }
+
+    /**
+     * Stops the endpoint if it's running.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Whether the endpoint is running.
+     *
+     * @return true if metrics are being served
+     */
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package net.mythofy.mapMorph.extensions;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the MySQL store against an in-memory H2 database in MySQL mode.
+ * The background flusher is effectively off; tests flush through {@code save}.
+ */
+class MySqlPlayerDataStoreTest {
+
+    private static final String TABLE = "mm_player_stats";
+    private static final long NEVER = 3_600_000L;
+
+    private final UUID player = UUID.randomUUID();
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private HikariDataSource dataSource;
+    private MySqlPlayerDataStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        hikari.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(hikari);
+        store = new MySqlPlayerDataStore(dataSource, "mm_", 500, NEVER, Logger.getLogger("MySqlPlayerDataStoreTest"),
+                (playerId, mapName, statKey) -> values.get(playerId + "/" + mapName + "/" + statKey));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private void set(String mapName, String statKey, Object value) {
+        values.put(player + "/" + mapName + "/" + statKey, value);
+        store.statChanged(player, mapName, statKey);
+    }
+
+    /**
+     * Unloads the player the way MapPlayerData's eviction task does: only if
+     * the store has nothing left to write for them.
+     */
+    private boolean evict() {
+        if (store.hasPendingChanges(player)) {
+            return false;
+        }
+        values.keySet().removeIf(key -> key.startsWith(player + "/"));
+        return true;
+    }
+
+    private Map<String, Object> stored(String mapName) throws IOException {
+        return store.loadPlayer(player).getOrDefault(mapName, Map.of());
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int rowCount() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE)) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+
+    @Test
+    void repeatedChangesToOneStatCoalesceIntoOneRow() throws Exception {
+        for (int kills = 1; kills <= 100; kills++) {
+            set("arena", "kills", kills);
+        }
+        assertEquals(1, store.getQueueDepth());
+
+        store.save(null, null);
+
+        assertEquals(0, store.getQueueDepth());
+        assertEquals(1, store.getFlushedRows());
+        assertEquals(1, rowCount());
+        assertEquals(100, stored("arena").get("kills"));
+    }
+
+    @Test
+    void statsSetAfterResetSurviveIt() throws Exception {
+        set("arena", "kills", 5);
+        set("arena", "deaths", 2);
+        store.save(null, null);
+
+        // Queued before the reset: superseded by it
+        set("arena", "kills", 6);
+        store.mapReset(player, "arena");
+        values.clear();
+        // Set after the reset: must be written after the delete
+        set("arena", "wins", 1);
+        store.save(null, null);
+
+        Map<String, Object> arena = stored("arena");
+        assertEquals(1, arena.size());
+        assertEquals(1, arena.get("wins"));
+        assertNull(arena.get("kills"));
+    }
+
+    @Test
+    void failedFlushIsRolledBackAndRequeued() throws Exception {
+        set("arena", "kills", 3);
+        store.save(null, null);
+
+        store.mapReset(player, "arena");
+        values.clear();
+        set("arena", "deaths", 1);
+        assertEquals(2, store.getQueueDepth());
+
+        // The reset's delete succeeds, then the stat's insert fails
+        execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT no_deaths CHECK (stat_key <> 'deaths')");
+        assertThrows(IOException.class, () -> store.save(null, null));
+        assertEquals(1, store.getFailedFlushes());
+        assertEquals(2, store.getQueueDepth());
+
+        // The delete was rolled back, and the next flush writes everything
+        assertEquals(3, stored("arena").get("kills"));
+        execute("ALTER TABLE " + TABLE + " DROP CONSTRAINT no_deaths");
+        store.save(null, null);
+
+        assertEquals(0, store.getQueueDepth());
+        Map<String, Object> arena = stored("arena");
+        assertFalse(arena.containsKey("kills"));
+        assertEquals(1, arena.get("deaths"));
+    }
+
+    @Test
+    void playerIsKeptLoadedUntilAFailedFlushIsRetried() throws Exception {
+        set("arena", "kills", 3);
+        store.save(null, null);
+        assertFalse(store.hasPendingChanges(player));
+
+        execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT no_deaths CHECK (stat_key <> 'deaths')");
+        set("arena", "kills", 4);
+        set("arena", "deaths", 1);
+        assertThrows(IOException.class, () -> store.save(null, null));
+
+        // Evicting now would make the retry write NULL over both stats
+        assertTrue(store.hasPendingChanges(player));
+        assertFalse(evict());
+
+        execute("ALTER TABLE " + TABLE + " DROP CONSTRAINT no_deaths");
+        store.save(null, null);
+
+        assertFalse(store.hasPendingChanges(player));
+        assertTrue(evict());
+        Map<String, Object> arena = stored("arena");
+        assertEquals(4, arena.get("kills"));
+        assertEquals(1, arena.get("deaths"));
+    }
+}
@@ -0,0 +1,98 @@
+package net.mythofy.mapMorph.extensions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the SQLite store against a database file in a temporary folder.
+ */
+class SqlitePlayerDataStoreTest {
+
+    private static final Logger LOGGER = Logger.getLogger("SqlitePlayerDataStoreTest");
+
+    @TempDir
+    File folder;
+
+    private File file;
+    private SqlitePlayerDataStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = new File(folder, "data.db");
+        store = new SqlitePlayerDataStore(file, LOGGER, "mm_");
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static Map<String, Map<String, Object>> stats(String mapName, Object... keysAndValues) {
+        Map<String, Object> stats = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            stats.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        Map<String, Map<String, Object>> maps = new HashMap<>();
+        maps.put(mapName, stats);
+        return maps;
+    }
+
+    @Test
+    void unknownPlayerLoadsEmpty() throws Exception {
+        assertTrue(store.loadPlayer(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void savedPlayerLoadsWithValueTypes() throws Exception {
+        UUID player = UUID.randomUUID();
+        store.save(Map.of(player, stats("arena", "kills", 5, "time", 12_000_000_000L,
+                "ratio", 1.5, "won", true, "kit", "archer")), Map.of());
+
+        Map<String, Object> arena = store.loadPlayer(player).get("arena");
+        assertEquals(5, arena.get("kills"));
+        assertEquals(12_000_000_000L, arena.get("time"));
+        assertEquals(1.5, arena.get("ratio"));
+        assertEquals(true, arena.get("won"));
+        assertEquals("archer", arena.get("kit"));
+    }
+
+    @Test
+    void saveReplacesOnlyChangedPlayers() throws Exception {
+        UUID changed = UUID.randomUUID();
+        UUID untouched = UUID.randomUUID();
+        UUID added = UUID.randomUUID();
+        store.save(Map.of(changed, stats("arena", "kills", 1, "deaths", 2),
+                untouched, stats("arena", "kills", 7)), Map.of());
+
+        // A changed player's rows are replaced as a whole, so dropped stats disappear
+        store.save(Map.of(changed, stats("arena", "kills", 3),
+                added, stats("castle", "wins", 1)), Map.of());
+
+        assertEquals(stats("arena", "kills", 3), store.loadPlayer(changed));
+        assertEquals(stats("arena", "kills", 7), store.loadPlayer(untouched));
+        assertEquals(stats("castle", "wins", 1), store.loadPlayer(added));
+        assertEquals(3, store.loadAll().size());
+    }
+
+    @Test
+    void dataSurvivesReopening() throws Exception {
+        UUID player = UUID.randomUUID();
+        store.save(Map.of(player, stats("arena", "kills", 9)), Map.of());
+        store.close();
+
+        store = new SqlitePlayerDataStore(file, LOGGER, "mm_");
+        assertEquals(stats("arena", "kills", 9), store.loadPlayer(player));
+    }
+}